@@ -0,0 +1,125 @@
+package com.universe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row parsing of a star catalog in the new format: the BufferedReader/split/trim/parseDouble
+ * path DataLoader used before {@link CsvTokenizer}, against the tokenizer. Both read every field
+ * the loader reads, creating the name and spectral class Strings, but build no Star objects, so
+ * only the parsing itself is compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class CsvParseBenchmark {
+
+    @Param("stars.csv")
+    public String file;
+
+    private byte[] bytes;
+
+    @Setup
+    public void load() throws IOException {
+        bytes = Files.readAllBytes(Paths.get(file));
+    }
+
+    @Benchmark
+    public int splitRows(Blackhole blackhole) throws IOException {
+        int rows = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            String line = reader.readLine(); // Header
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.matches("^,*")) continue;
+                String[] parts = line.split(",", -1);
+                if (parts.length < 8 || !isNumeric(parts[0])) continue;
+
+                int hipId = parts[0].trim().isEmpty() ? 0 : Integer.parseInt(parts[0].trim());
+                boolean habitable = !parts[1].trim().isEmpty() && !parts[1].trim().equals("0");
+                String displayName = parts[2].trim();
+                String spectralClass = parts[3].trim();
+                double distance = parts[4].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[4].trim());
+                double x = parts[5].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[5].trim());
+                double y = parts[6].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[6].trim());
+                double z = parts[7].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[7].trim());
+                double absMag = parts.length > 8 && !parts[8].trim().isEmpty() ? Double.parseDouble(parts[8].trim()) : 0.0;
+                consume(blackhole, hipId, habitable, displayName, spectralClass, distance, x, y, z, absMag);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public int tokenizerRows(Blackhole blackhole) {
+        int rows = 0;
+        CsvTokenizer csv = new CsvTokenizer(ByteBuffer.wrap(bytes));
+        csv.nextLine(); // Header
+        while (csv.nextLine()) {
+            if (csv.isBlankOrComment()) continue;
+            if (csv.fieldCount() < 8 || !csv.isInt(0)) continue;
+
+            int hipId = csv.isEmpty(0) ? 0 : csv.parseInt(0);
+            boolean habitable = !csv.isEmpty(1) && !csv.equals(1, "0");
+            String displayName = csv.string(2);
+            String spectralClass = csv.string(3);
+            double distance = csv.isEmpty(4) ? 0.0 : csv.parseDouble(4);
+            double x = csv.isEmpty(5) ? 0.0 : csv.parseDouble(5);
+            double y = csv.isEmpty(6) ? 0.0 : csv.parseDouble(6);
+            double z = csv.isEmpty(7) ? 0.0 : csv.parseDouble(7);
+            double absMag = csv.fieldCount() > 8 && !csv.isEmpty(8) ? csv.parseDouble(8) : 0.0;
+            consume(blackhole, hipId, habitable, displayName, spectralClass, distance, x, y, z, absMag);
+            rows++;
+        }
+        return rows;
+    }
+
+    private static void consume(Blackhole blackhole, int hipId, boolean habitable, String name, String spectral,
+                                double distance, double x, double y, double z, double absMag) {
+        blackhole.consume(hipId);
+        blackhole.consume(habitable);
+        blackhole.consume(name);
+        blackhole.consume(spectral);
+        blackhole.consume(distance);
+        blackhole.consume(x);
+        blackhole.consume(y);
+        blackhole.consume(z);
+        blackhole.consume(absMag);
+    }
+
+    // As in the old DataLoader
+    private static boolean isNumeric(String str) {
+        if (str == null || str.isEmpty()) return false;
+        try {
+            Integer.parseInt(str);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
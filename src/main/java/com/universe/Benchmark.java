@@ -0,0 +1,155 @@
+package com.universe;
+
+import org.joml.Vector3d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scripted camera flights for the --bench mode, replayed frame by frame.
+ *
+ * Flights advance by a fixed time step per frame rather than by wall-clock time, so every run
+ * renders the same sequence of views however fast the machine is. The flights are planned once
+ * the catalog has finished loading, and each starts with unrecorded warm-up frames at its first
+ * pose so the far-field sky and draw order have settled before measuring.
+ */
+public class Benchmark {
+
+    static final double FRAME_SECONDS = 1.0 / 60.0; // Scripted time per frame
+    private static final int WARMUP_FRAMES = 60;
+    private static final double DENSE_CELL_SIZE = 100.0; // Light-years
+
+    /** Camera position and look-at point at a point t in [0, 1] of a flight. */
+    interface FlightPath {
+        void pose(double t, Vector3d position, Vector3d target);
+    }
+
+    static class Flight {
+        final String name;
+        final float fov; // Vertical, degrees
+        final FlightPath path;
+
+        Flight(String name, float fov, FlightPath path) {
+            this.name = name;
+            this.fov = fov;
+            this.path = path;
+        }
+    }
+
+    private final int framesPerFlight;
+    private List<Flight> flights; // Null until the catalog has loaded
+    private int flightIndex;
+    private int frame = -WARMUP_FRAMES; // Negative while warming up
+    private final Vector3d position = new Vector3d();
+    private final Vector3d target = new Vector3d();
+    private final Vector3d previous = new Vector3d();
+
+    public Benchmark(int framesPerFlight) {
+        this.framesPerFlight = framesPerFlight;
+    }
+
+    /**
+     * The standard flights: a close pass of the Sun, a narrow-FOV pan around the sky, a wide-FOV
+     * orbit of the solar neighborhood, and a traversal of the densest region of the catalog.
+     */
+    static List<Flight> standardFlights(StarCatalog stars) {
+        List<Flight> flights = new ArrayList<>();
+        flights.add(new Flight("sun_flyby", 45.0f, (t, position, target) -> {
+            position.set(0.05, 0.02, 1.0 - 2.0 * t);
+            target.set(0.0, 0.0, 0.0);
+        }));
+        flights.add(new Flight("narrow_fov", 2.0f, (t, position, target) -> {
+            double angle = 2.0 * Math.PI * t;
+            position.set(0.0, 0.0, 0.8);
+            target.set(position).add(Math.cos(angle), 0.1, Math.sin(angle));
+        }));
+        flights.add(new Flight("wide_fov", 120.0f, (t, position, target) -> {
+            double angle = 2.0 * Math.PI * t;
+            position.set(50.0 * Math.cos(angle), 10.0, 50.0 * Math.sin(angle));
+            target.set(0.0, 0.0, 0.0);
+        }));
+
+        // Straight through the most populated cell, away from the Sun
+        Vector3d center = densestCell(stars);
+        Vector3d direction = new Vector3d(center);
+        if (direction.length() < DENSE_CELL_SIZE) {
+            direction.set(1.0, 0.0, 0.0);
+        }
+        direction.normalize();
+        double halfLength = 2.0 * DENSE_CELL_SIZE;
+        flights.add(new Flight("dense_traversal", 45.0f, (t, position, target) -> {
+            position.set(direction).mul((2.0 * t - 1.0) * halfLength).add(center);
+            target.set(position).add(direction);
+        }));
+        return flights;
+    }
+
+    // Center of the DENSE_CELL_SIZE grid cell holding the most stars
+    private static Vector3d densestCell(StarCatalog stars) {
+        double[] xs = stars.xs(), ys = stars.ys(), zs = stars.zs();
+        IntIntHashMap counts = new IntIntHashMap(1024);
+        int bestKey = 0, bestCount = 0;
+        for (int id = 0; id < stars.size(); id++) {
+            int key = cellKey(xs[id]) | cellKey(ys[id]) << 10 | cellKey(zs[id]) << 20 | 1 << 30; // Never 0
+            int count = counts.get(key, 0) + 1;
+            counts.put(key, count);
+            if (count > bestCount) {
+                bestCount = count;
+                bestKey = key;
+            }
+        }
+        if (bestCount == 0) return new Vector3d();
+        return new Vector3d(cellCenter(bestKey), cellCenter(bestKey >> 10), cellCenter(bestKey >> 20));
+    }
+
+    private static int cellKey(double coordinate) {
+        int cell = (int) Math.floor(coordinate / DENSE_CELL_SIZE) + 512;
+        return Math.max(0, Math.min(1023, cell));
+    }
+
+    private static double cellCenter(int key) {
+        return ((key & 1023) - 512 + 0.5) * DENSE_CELL_SIZE;
+    }
+
+    /**
+     * Poses the camera for the next frame. Returns the name of the flight to record the frame
+     * under, or null for frames that aren't measured (waiting for the catalog, warming up).
+     */
+    public String next(Camera camera, StarStreamLoader.Snapshot snapshot) {
+        if (flights == null) {
+            if (!snapshot.complete) return null;
+            flights = standardFlights(snapshot.stars);
+            System.out.printf("Benchmark: %d flights of %d frames over %d stars%n",
+                              flights.size(), framesPerFlight, snapshot.stars.size());
+        }
+        if (isDone()) return null;
+
+        Flight flight = flights.get(flightIndex);
+        if (frame == -WARMUP_FRAMES) {
+            System.out.println("Benchmark flight: " + flight.name);
+        }
+        double t = framesPerFlight > 1 ? Math.max(0, frame) / (double) (framesPerFlight - 1) : 0.0;
+        flight.path.pose(t, position, target);
+        camera.position.set(position);
+        camera.pointAt(target.x, target.y, target.z);
+        camera.zoom = flight.fov;
+        // Tile streaming prefetches along the scripted motion
+        if (frame > 0) {
+            camera.velocity.set(position).sub(previous).div(FRAME_SECONDS);
+        } else {
+            camera.velocity.zero();
+        }
+        previous.set(position);
+
+        String recorded = frame >= 0 ? flight.name : null;
+        if (++frame == framesPerFlight) {
+            flightIndex++;
+            frame = -WARMUP_FRAMES;
+        }
+        return recorded;
+    }
+
+    public boolean isDone() {
+        return flights != null && flightIndex == flights.size();
+    }
+}
@@ -0,0 +1,156 @@
+package com.universe;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-flight frame timings of a benchmark run, summarized as p50/p95/p99 in JSON.
+ *
+ * Each frame contributes one CPU and (when timer queries are available) one GPU sample per phase
+ * plus the whole frame, in milliseconds. Percentiles use the nearest-rank method.
+ */
+public class BenchmarkReport {
+
+    private static final int[] PERCENTILES = {50, 95, 99};
+
+    private final String[] phases;
+    private final Map<String, Samples[]> cpu = new LinkedHashMap<>();
+    private final Map<String, Samples[]> gpu = new LinkedHashMap<>();
+    private final Map<String, Object> environment = new LinkedHashMap<>();
+
+    private static class Samples {
+        double[] values = new double[256];
+        int size;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * @param phases names of the timed phases, in frame order; "frame" is added for the total
+     */
+    public BenchmarkReport(String[] phases) {
+        this.phases = Arrays.copyOf(phases, phases.length + 1);
+        this.phases[phases.length] = "frame";
+    }
+
+    /** Adds a value (string or number) to the report's environment section. */
+    public void describe(String key, Object value) {
+        environment.put(key, value);
+    }
+
+    /**
+     * Records one frame of a flight. phaseMillis holds one duration per phase; the frame total is
+     * their sum.
+     */
+    public void addCpuFrame(String flight, double[] phaseMillis) {
+        add(cpu, flight, phaseMillis);
+    }
+
+    public void addGpuFrame(String flight, double[] phaseMillis) {
+        add(gpu, flight, phaseMillis);
+    }
+
+    private void add(Map<String, Samples[]> samples, String flight, double[] phaseMillis) {
+        Samples[] flightSamples = samples.computeIfAbsent(flight, name -> {
+            Samples[] created = new Samples[phases.length];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new Samples();
+            }
+            return created;
+        });
+        double total = 0;
+        for (int i = 0; i < phaseMillis.length; i++) {
+            flightSamples[i].add(phaseMillis[i]);
+            total += phaseMillis[i];
+        }
+        flightSamples[phases.length - 1].add(total);
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static double percentile(double[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        for (Map.Entry<String, Object> entry : environment.entrySet()) {
+            json.append("  ");
+            appendString(json, entry.getKey()).append(": ");
+            appendValue(json, entry.getValue()).append(",\n");
+        }
+        json.append("  \"flights\": [");
+        boolean firstFlight = true;
+        for (Map.Entry<String, Samples[]> flight : cpu.entrySet()) {
+            json.append(firstFlight ? "\n" : ",\n");
+            firstFlight = false;
+            json.append("    {\n      \"name\": ");
+            appendString(json, flight.getKey()).append(",\n");
+            json.append("      \"frames\": ").append(flight.getValue()[0].size).append(",\n");
+            json.append("      \"cpu_ms\": ");
+            appendPhases(json, flight.getValue()).append(",\n");
+            json.append("      \"gpu_ms\": ");
+            Samples[] gpuSamples = gpu.get(flight.getKey());
+            if (gpuSamples != null) {
+                appendPhases(json, gpuSamples);
+            } else {
+                json.append("null");
+            }
+            json.append("\n    }");
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    private StringBuilder appendPhases(StringBuilder json, Samples[] samples) {
+        json.append('{');
+        for (int phase = 0; phase < phases.length; phase++) {
+            Samples phaseSamples = samples[phase];
+            double[] sorted = Arrays.copyOf(phaseSamples.values, phaseSamples.size);
+            Arrays.sort(sorted);
+            json.append(phase == 0 ? "\n" : ",\n").append("        ");
+            appendString(json, phases[phase]).append(": {");
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                if (i > 0) json.append(", ");
+                json.append("\"p").append(PERCENTILES[i]).append("\": ");
+                if (sorted.length == 0) {
+                    json.append("null");
+                } else {
+                    json.append(String.format(Locale.ROOT, "%.3f", percentile(sorted, PERCENTILES[i])));
+                }
+            }
+            json.append('}');
+        }
+        return json.append("\n      }");
+    }
+
+    private static StringBuilder appendValue(StringBuilder json, Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            return json.append(value);
+        }
+        return appendString(json, String.valueOf(value));
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
@@ -10,6 +10,8 @@ public class Camera {
     public Vector3f up;
     public Vector3f right;
     public Vector3f worldUp;
+    public final Vector3d velocity = new Vector3d(); // Light-years per second, see updateVelocity()
+    private final Vector3d frameMovement = new Vector3d(); // Keyboard movement since the last updateVelocity()
 
     // Euler Angles
     public float yaw;
@@ -87,31 +89,55 @@ public class Camera {
     // Processes input received from any keyboard-like input system.
     // Accepts input parameter in the form of camera defined ENUM (to abstract it from windowing systems)
     public void processKeyboard(CameraMovement direction, double deltaTime) {
-        double velocity = movementSpeed * deltaTime;
+        double distance = movementSpeed * deltaTime;
         
         // Note: Calculations done in double precision for position
         Vector3d frontD = new Vector3d(front.x, front.y, front.z); // Convert direction to double for movement calc
         Vector3d rightD = new Vector3d(right.x, right.y, right.z);
         Vector3d upD    = new Vector3d(up.x, up.y, up.z); // Use camera's up for vertical movement
+        Vector3d start  = new Vector3d(position);
         
         if (direction == CameraMovement.FORWARD) {
-            position.add(new Vector3d(frontD).mul(velocity));
+            position.add(new Vector3d(frontD).mul(distance));
         }
         if (direction == CameraMovement.BACKWARD) {
-            position.sub(new Vector3d(frontD).mul(velocity));
+            position.sub(new Vector3d(frontD).mul(distance));
         }
         if (direction == CameraMovement.LEFT) {
-            position.sub(new Vector3d(rightD).mul(velocity));
+            position.sub(new Vector3d(rightD).mul(distance));
         }
         if (direction == CameraMovement.RIGHT) {
-            position.add(new Vector3d(rightD).mul(velocity));
+            position.add(new Vector3d(rightD).mul(distance));
         }
          if (direction == CameraMovement.UP) { // Use camera's local UP
-             position.add(new Vector3d(upD).mul(velocity));
+             position.add(new Vector3d(upD).mul(distance));
          }
          if (direction == CameraMovement.DOWN) { // Use camera's local DOWN
-             position.sub(new Vector3d(upD).mul(velocity));
+             position.sub(new Vector3d(upD).mul(distance));
          }
+        frameMovement.add(position).sub(start);
+    }
+
+    // Turns the keyboard movement since the last call into velocity; call once per frame.
+    // Teleports and other direct position changes don't count as movement.
+    public void updateVelocity(double deltaTime) {
+        if (deltaTime > 0) {
+            velocity.set(frameMovement).div(deltaTime);
+        } else {
+            velocity.zero();
+        }
+        frameMovement.zero();
+    }
+
+    // Turns the camera towards a point, keeping pitch within the same bounds as mouse movement
+    public void pointAt(double x, double y, double z) {
+        double dx = x - position.x, dy = y - position.y, dz = z - position.z;
+        double horizontal = java.lang.Math.sqrt(dx * dx + dz * dz);
+        if (horizontal == 0.0 && dy == 0.0) return;
+        yaw = (float) java.lang.Math.toDegrees(java.lang.Math.atan2(dz, dx));
+        pitch = (float) java.lang.Math.toDegrees(java.lang.Math.atan2(dy, horizontal));
+        pitch = java.lang.Math.max(-89.0f, java.lang.Math.min(89.0f, pitch));
+        updateCameraVectors();
     }
 
     // Processes input received from a mouse input system.
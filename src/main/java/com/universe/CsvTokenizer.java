@@ -0,0 +1,266 @@
+package com.universe;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Comma-separated tokenizer over raw UTF-8 bytes.
+ * Lines and fields are kept as byte ranges of the buffer; numbers are parsed straight from the
+ * bytes and Strings are only created when a caller asks for one (names, messages).
+ * Behaves like the String-based parsing it replaces: lines end at \n, \r\n or \r, each line is
+ * trimmed, then split on every comma, and fields are trimmed when read.
+ */
+class CsvTokenizer {
+
+    // Powers of ten that are exact doubles, for the fast decimal path
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final byte[] bytes;
+    private final int end;
+    private int position;
+    private int lineNumber;
+
+    // Current line (trimmed) and its fields (untrimmed), as indices into bytes
+    private int lineStart, lineEnd;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount;
+
+    /**
+     * Tokenizes the buffer's remaining bytes. Direct and mapped buffers are copied to the heap once
+     * in bulk, since scanning them a byte at a time through get(int) is several times slower.
+     */
+    CsvTokenizer(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            bytes = buffer.array();
+            position = buffer.arrayOffset() + buffer.position();
+            end = buffer.arrayOffset() + buffer.limit();
+        } else {
+            bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            position = 0;
+            end = bytes.length;
+        }
+    }
+
+    /**
+     * Advances to the next line and splits it into fields. Returns false at the end of the buffer.
+     */
+    boolean nextLine() {
+        if (position >= end) return false;
+        int start = position;
+        int stop = start;
+        while (stop < end) {
+            byte b = bytes[stop];
+            if (b == '\n' || b == '\r') break;
+            stop++;
+        }
+        position = stop + 1;
+        if (stop < end && bytes[stop] == '\r' && position < end && bytes[position] == '\n') {
+            position++;
+        }
+        lineNumber++;
+
+        // Same as String.trim(): strip bytes <= ' ' (UTF-8 continuation bytes are never stripped)
+        while (start < stop && isWhitespace(bytes[start])) start++;
+        while (stop > start && isWhitespace(bytes[stop - 1])) stop--;
+        lineStart = start;
+        lineEnd = stop;
+
+        fieldCount = 0;
+        int fieldBegin = start;
+        for (int i = start; i < stop; i++) {
+            if (bytes[i] == ',') {
+                addField(fieldBegin, i);
+                fieldBegin = i + 1;
+            }
+        }
+        addField(fieldBegin, stop);
+        return true;
+    }
+
+    private void addField(int start, int stop) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = stop;
+        fieldCount++;
+    }
+
+    int lineNumber() {
+        return lineNumber;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    // Empty lines, comments and lines made only of commas carry no data
+    boolean isBlankOrComment() {
+        if (lineStart == lineEnd || bytes[lineStart] == '#') return true;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (bytes[i] != ',') return false;
+        }
+        return true;
+    }
+
+    // The trimmed line, for messages
+    String line() {
+        return decode(lineStart, lineEnd);
+    }
+
+    boolean isEmpty(int field) {
+        return trimmedStart(field) == trimmedEnd(field);
+    }
+
+    // Trimmed field as a String
+    String string(int field) {
+        return decode(trimmedStart(field), trimmedEnd(field));
+    }
+
+    // Trimmed field equals an ASCII string
+    boolean equals(int field, String ascii) {
+        int start = trimmedStart(field);
+        int stop = trimmedEnd(field);
+        if (stop - start != ascii.length()) return false;
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes[start + i] != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Trimmed field equals an ASCII string, ignoring ASCII case
+    boolean equalsIgnoreCase(int field, String ascii) {
+        int start = trimmedStart(field);
+        int stop = trimmedEnd(field);
+        if (stop - start != ascii.length()) return false;
+        for (int i = 0; i < ascii.length(); i++) {
+            int b = bytes[start + i];
+            if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+            if (b != Character.toLowerCase(ascii.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if the untrimmed field is a valid int, as accepted by Integer.parseInt.
+     */
+    boolean isInt(int field) {
+        int start = fieldStart[field];
+        int stop = fieldEnd[field];
+        if (start < stop && (bytes[start] == '-' || bytes[start] == '+')) start++;
+        if (start == stop) return false;
+        for (int i = start; i < stop; i++) {
+            byte b = bytes[i];
+            if (b < '0' || b > '9') return false;
+        }
+        if (stop - start < 10) return true;
+        try {
+            Integer.parseInt(decode(fieldStart[field], fieldEnd[field]));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses the trimmed field as an int. Throws NumberFormatException like Integer.parseInt.
+     */
+    int parseInt(int field) {
+        int start = trimmedStart(field);
+        int stop = trimmedEnd(field);
+        boolean negative = start < stop && bytes[start] == '-';
+        int i = negative || (start < stop && bytes[start] == '+') ? start + 1 : start;
+        if (i == stop || stop - i > 9) {
+            return Integer.parseInt(decode(start, stop)); // Empty, sign only or possible overflow
+        }
+        int value = 0;
+        for (; i < stop; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) return Integer.parseInt(decode(start, stop));
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the trimmed field as a double, giving the same result as Double.parseDouble.
+     * Plain decimals with up to 18 significant digits are converted in place (exact when both the
+     * digits and the power of ten are exact doubles); anything else goes through Double.parseDouble.
+     */
+    double parseDouble(int field) {
+        int start = trimmedStart(field);
+        int stop = trimmedEnd(field);
+        int i = start;
+        boolean negative = false;
+        if (i < stop && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;      // Significant digits in mantissa
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < stop; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && b == '0') {
+                    if (seenPoint) fractionDigits++;
+                    continue; // Leading zeros don't count towards precision
+                }
+                if (++digits > 18) return slowParseDouble(start, stop);
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenPoint) fractionDigits++;
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return slowParseDouble(start, stop); // Exponent, NaN, Infinity, hex or invalid
+            }
+        }
+        if (!seenDigit) return slowParseDouble(start, stop);
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (mantissa < (1L << 53) && fractionDigits < EXACT_POWERS_OF_TEN.length) {
+            value = mantissa / EXACT_POWERS_OF_TEN[fractionDigits];
+        } else {
+            return slowParseDouble(start, stop);
+        }
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(int start, int stop) {
+        return Double.parseDouble(decode(start, stop));
+    }
+
+    private int trimmedStart(int field) {
+        int start = fieldStart[field];
+        int stop = fieldEnd[field];
+        while (start < stop && isWhitespace(bytes[start])) start++;
+        return start;
+    }
+
+    private int trimmedEnd(int field) {
+        int start = fieldStart[field];
+        int stop = fieldEnd[field];
+        while (stop > start && isWhitespace(bytes[stop - 1])) stop--;
+        return stop;
+    }
+
+    private String decode(int start, int stop) {
+        return new String(bytes, start, stop - start, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+}
@@ -0,0 +1,33 @@
+package com.universe;
+
+/**
+ * Per-frame culling counters.
+ * Stars rejected or accepted together with their octree node are counted without being tested individually.
+ */
+public class CullStats {
+    public int nodesVisited;
+    public int starsTested;   // Stars checked one by one against the frustum
+    public int starsAccepted; // Stars sent to the renderer
+    public int starsRejected; // Stars culled, individually or with their node
+    public int starsTooFaint; // Of those, stars beyond the magnitude limit
+    public int nodesAggregated; // Nodes sent to the renderer as one aggregate
+    public int starsAggregated; // Stars inside those nodes
+
+    public void reset() {
+        nodesVisited = 0;
+        starsTested = 0;
+        starsAccepted = 0;
+        starsRejected = 0;
+        starsTooFaint = 0;
+        nodesAggregated = 0;
+        starsAggregated = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("tested %d, accepted %d, rejected %d (%d too faint), aggregated %d in %d (%d nodes)",
+                             starsTested, starsAccepted, starsRejected, starsTooFaint,
+                             starsAggregated, nodesAggregated,
+                             nodesVisited);
+    }
+}
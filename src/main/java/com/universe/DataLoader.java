@@ -1,21 +1,66 @@
 package com.universe;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 public class DataLoader {
 
+    // Star files are split into chunks of at least this size, parsed in parallel
+    private static final long MIN_CHUNK_BYTES = 256 * 1024;
+    private static final long MAX_CHUNK_BYTES = 64L * 1024 * 1024; // Bounds the per-chunk heap copy
+    private static final int CHUNKS_PER_WORKER = 4; // Extra chunks even out uneven line lengths
+
+    // Size of the first partial catalog handed out while streaming
+    private static final int FIRST_BATCH_STARS = 1024;
+
+    // Parse errors of one chunk, held back until the chunk's first line number is known
+    private static class ParseErrors {
+        private final List<String> prefixes = new ArrayList<>();
+        private final IntList lines = new IntList();
+        private final List<String> suffixes = new ArrayList<>();
+
+        // The reported message is prefix + line number + suffix
+        void add(String prefix, int localLineNum, String suffix) {
+            prefixes.add(prefix);
+            lines.add(localLineNum);
+            suffixes.add(suffix);
+        }
+
+        void print(int firstLineNum) {
+            for (int i = 0; i < lines.size(); i++) {
+                System.err.println(prefixes.get(i) + (firstLineNum + lines.get(i) - 1) + suffixes.get(i));
+            }
+        }
+    }
+
+    // Stars parsed from one byte range of a file
+    private static class StarChunk {
+        final StarCatalog stars;
+        final ParseErrors errors = new ParseErrors();
+        int lineCount;
+
+        StarChunk(int expectedStars) {
+            stars = new StarCatalog(expectedStars);
+        }
+    }
+
     // Load stars from a file within the classpath/jar
-    public static Map<String, Star> loadStarsFromResources(String resourcePath) throws IOException {
-        Map<String, Star> stars = new HashMap<>();
+    public static StarCatalog loadStarsFromResources(String resourcePath) throws IOException {
+        StarCatalog stars = new StarCatalog();
         // Try to load as a resource stream first
         InputStream is = DataLoader.class.getClassLoader().getResourceAsStream(resourcePath);
         if (is == null) {
@@ -24,217 +69,294 @@ public class DataLoader {
             return loadStarsFromFile(resourcePath);
         }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-             parseStars(reader, stars);
+        ParseErrors errors = new ParseErrors();
+        try (InputStream in = is) {
+             parseStars(new CsvTokenizer(ByteBuffer.wrap(in.readAllBytes())), stars, true, errors);
         }
+        errors.print(1);
         System.out.println("Loaded " + stars.size() + " stars from resource: " + resourcePath);
         return stars;
     }
 
-    // Load stars from an external file path
-    public static Map<String, Star> loadStarsFromFile(String filePath) throws IOException {
-        Map<String, Star> stars = new HashMap<>();
-         try (BufferedReader reader = new BufferedReader(new FileReader(filePath, StandardCharsets.UTF_8))) {
-            parseStars(reader, stars);
+    // Load stars from an external file path, using the binary cache next to it when it is up to date
+    public static StarCatalog loadStarsFromFile(String filePath) throws IOException {
+        return streamStarsFromFile(filePath, null);
+    }
+
+    /**
+     * Loads stars like {@link #loadStarsFromFile}, handing partial catalogs to onBatch (if not null)
+     * while loading. Each batch is a separate catalog holding a growing prefix of the stars: the
+     * nearest stars first when the binary cache is used, file order when the CSV is parsed. A
+     * cache not sorted by distance is loaded in one piece, since its prefixes aren't the nearest.
+     * Batches are delivered on the calling thread and roughly double in size each time.
+     * Returns the complete catalog, which is not passed to onBatch.
+     */
+    public static StarCatalog streamStarsFromFile(String filePath, Consumer<StarCatalog> onBatch) throws IOException {
+        Path source = Paths.get(filePath);
+        long startTime = System.nanoTime();
+        StarCatalogCache.Mapping cache = StarCatalogCache.open(source);
+        if (cache != null) {
+            if (onBatch != null && cache.isSortedByDistance()) {
+                for (int n = FIRST_BATCH_STARS; n < cache.size(); n *= 2) {
+                    onBatch.accept(cache.read(n));
+                }
+            }
+            StarCatalog cached = cache.read(cache.size());
+            System.out.printf("Loaded %d stars from cache %s in %.1f ms%n",
+                              cached.size(), StarCatalogCache.cachePathFor(source), (System.nanoTime() - startTime) / 1e6);
+            return cached;
+        }
+
+        StarCatalog stars = parseStarsParallel(source, onBatch);
+        System.out.printf("Loaded %d stars from file: %s in %.1f ms%n",
+                          stars.size(), filePath, (System.nanoTime() - startTime) / 1e6);
+
+        // Write the cache for the next launch; failing to do so only costs startup time
+        try {
+            StarCatalogCache.write(source, stars);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not write star cache for " + filePath + ": " + e.getMessage());
         }
-        System.out.println("Loaded " + stars.size() + " stars from file: " + filePath);
         return stars;
     }
 
-    private static void parseStars(BufferedReader reader, Map<String, Star> stars) throws IOException {
-         String line;
-         boolean headerSkipped = false;
-         int lineNum = 0;
-         while ((line = reader.readLine()) != null) {
-             lineNum++;
-             if (!headerSkipped) {
-                 headerSkipped = true;
-                 // Check for new format header
-                 if (line.toLowerCase().contains("hip") && line.toLowerCase().contains("hab")) {
-                     System.out.println("Detected new star data format with Hipparcos IDs and galactic coordinates");
-                 } else if (!line.toLowerCase().contains("system") && !line.toLowerCase().contains("name")) {
-                     System.err.println("Warning: Unexpected header in stars file: " + line);
-                 }
-                 continue; // Skip header row
-             }
-             line = line.trim();
-             if (line.isEmpty() || line.startsWith("#") || line.matches("^,*")) continue; // Skip empty lines, comments, or lines with only commas
+    /**
+     * Parses a star file by splitting it into newline-aligned byte ranges that are parsed on
+     * fork-join workers, each into its own catalog. The chunk catalogs are appended in file order
+     * as they complete, so ids, name keys and reported line numbers match a sequential parse.
+     */
+    private static StarCatalog parseStarsParallel(Path source, Consumer<StarCatalog> onBatch) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long maxChunks = (long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_WORKER;
+            long wanted = Math.max(Math.min(size / MIN_CHUNK_BYTES, maxChunks), (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            int chunkCount = (int) Math.max(1, wanted);
+
+            long[] bounds = new long[chunkCount + 1];
+            bounds[chunkCount] = size;
+            for (int i = 1; i < chunkCount; i++) {
+                bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, size * i / chunkCount, size));
+            }
 
-             String[] parts = line.split(",", -1); // Simple split
+            List<CompletableFuture<StarChunk>> chunks = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                long start = bounds[i], end = bounds[i + 1];
+                boolean hasHeader = i == 0;
+                chunks.add(CompletableFuture.supplyAsync(() -> parseStarChunk(channel, start, end, hasHeader),
+                                                         ForkJoinPool.commonPool()));
+            }
 
+            StarCatalog stars = new StarCatalog((int) Math.min(size / 48, Integer.MAX_VALUE - 8));
+            int firstLineNum = 1;
+            int nextBatch = FIRST_BATCH_STARS;
+            for (int i = 0; i < chunkCount; i++) {
+                StarChunk chunk;
+                try {
+                    chunk = chunks.get(i).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+                    throw e;
+                }
+                stars.addAll(chunk.stars);
+                chunk.errors.print(firstLineNum);
+                firstLineNum += chunk.lineCount;
+
+                // The last chunk completes the catalog, which is returned rather than batched
+                if (onBatch != null && stars.size() >= nextBatch && i < chunkCount - 1) {
+                    StarCatalog batch = new StarCatalog(stars.size());
+                    batch.addAll(stars);
+                    onBatch.accept(batch);
+                    nextBatch = stars.size() * 2;
+                }
+            }
+            return stars;
+        }
+    }
+
+    // Position just after the first newline at or after position, or end if there is none
+    private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < end) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    private static StarChunk parseStarChunk(FileChannel channel, long start, long end, boolean hasHeader) {
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            StarChunk chunk = new StarChunk((int) ((end - start) / 48)); // ~50 bytes per row
+            chunk.lineCount = parseStars(new CsvTokenizer(bytes), chunk.stars, hasHeader, chunk.errors);
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns the number of lines read; error line numbers are relative to the first line read
+    private static int parseStars(CsvTokenizer csv, StarCatalog stars, boolean hasHeader, ParseErrors errors) {
+         if (hasHeader && csv.nextLine()) {
+             // Check for new format header
+             String header = csv.line().toLowerCase();
+             if (header.contains("hip") && header.contains("hab")) {
+                 System.out.println("Detected new star data format with Hipparcos IDs and galactic coordinates");
+             } else if (!header.contains("system") && !header.contains("name")) {
+                 System.err.println("Warning: Unexpected header in stars file: " + csv.line());
+             }
+         }
+         while (csv.nextLine()) {
+             if (csv.isBlankOrComment()) continue; // Skip empty lines, comments, or lines with only commas
+
+             int lineNum = csv.lineNumber();
              try {
                  // Try to detect format based on number of columns
-                 if (parts.length >= 8 && isNumeric(parts[0])) {
+                 if (csv.fieldCount() >= 8 && csv.isInt(0)) {
                      // New format: Hip,Hab?,Display Name,Spectral Class,Distance,Xg,Yg,Zg,AbsMag
-                     parseNewFormatStar(parts, stars, lineNum);
-                 } else if (parts.length >= 7) {
+                     parseNewFormatStar(csv, stars, lineNum, errors);
+                 } else if (csv.fieldCount() >= 7) {
                      // Old format: SystemName,Name,StellarClass,DistanceLy,RA,Dec,Mass,AbsMag
-                     parseOldFormatStar(parts, stars, lineNum);
+                     parseOldFormatStar(csv, stars, lineNum, errors);
                  } else {
-                     System.err.println("Skipping malformed star line #" + lineNum + ": " + line + " (Not enough fields)");
+                     errors.add("Skipping malformed star line #", lineNum, ": " + csv.line() + " (Not enough fields)");
                  }
              } catch (NumberFormatException e) {
-                 System.err.println("Skipping star line #" + lineNum + " due to number format error: " + line + " - " + e.getMessage());
+                 errors.add("Skipping star line #", lineNum, " due to number format error: " + csv.line() + " - " + e.getMessage());
              } catch (Exception e) { // Catch other potential errors during Star creation
-                 System.err.println("Skipping star line #" + lineNum + " due to error creating Star object: " + line + " - " + e.getMessage());
+                 errors.add("Skipping star line #", lineNum, " due to error creating Star object: " + csv.line() + " - " + e.getMessage());
              }
          }
-    }
-
-    // Helper method to check if string can be parsed as numeric value
-    private static boolean isNumeric(String str) {
-        if (str == null || str.isEmpty()) return false;
-        try {
-            Integer.parseInt(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+         return csv.lineNumber();
     }
 
     // Parse star data in the new format with Hipparcos IDs and galactic coordinates
-    private static void parseNewFormatStar(String[] parts, Map<String, Star> stars, int lineNum) throws NumberFormatException {
+    private static void parseNewFormatStar(CsvTokenizer csv, StarCatalog stars, int lineNum, ParseErrors errors) throws NumberFormatException {
         // Parse Hipparcos ID (0 if not available)
-        int hipId = parts[0].trim().isEmpty() ? 0 : Integer.parseInt(parts[0].trim());
+        int hipId = csv.isEmpty(0) ? 0 : csv.parseInt(0);
         
         // Parse habitability flag (1 or non-empty = habitable)
-        boolean habitable = !parts[1].trim().isEmpty() && !parts[1].trim().equals("0");
+        boolean habitable = !csv.isEmpty(1) && !csv.equals(1, "0");
         
         // Get display name
-        String displayName = parts[2].trim();
-        if (displayName.isEmpty()) {
-            System.err.println("Skipping star line #" + lineNum + ": Name is empty.");
+        if (csv.isEmpty(2)) {
+            errors.add("Skipping star line #", lineNum, ": Name is empty.");
             return;
         }
+        String displayName = csv.string(2);
         
         // Parse spectral class
-        String spectralClass = parts[3].trim();
+        String spectralClass = csv.string(3);
         
         // Parse distance in parsecs (0 for Sun)
-        double distance = parts[4].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[4].trim());
+        double distance = csv.isEmpty(4) ? 0.0 : csv.parseDouble(4);
         
         // Parse galactic coordinates (0 for Sun or if unavailable)
-        double xGalactic = parts[5].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[5].trim());
-        double yGalactic = parts[6].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[6].trim());
-        double zGalactic = parts[7].trim().isEmpty() ? 0.0 : Double.parseDouble(parts[7].trim());
+        double xGalactic = csv.isEmpty(5) ? 0.0 : csv.parseDouble(5);
+        double yGalactic = csv.isEmpty(6) ? 0.0 : csv.parseDouble(6);
+        double zGalactic = csv.isEmpty(7) ? 0.0 : csv.parseDouble(7);
         
         // Parse absolute magnitude
-        double absMag = parts.length > 8 && !parts[8].trim().isEmpty() ? 
-            Double.parseDouble(parts[8].trim()) : 
+        double absMag = csv.fieldCount() > 8 && !csv.isEmpty(8) ? 
+            csv.parseDouble(8) : 
             (displayName.equalsIgnoreCase("Sun") ? 4.85 : 0.0); // Default to 4.85 for Sun
         
         // Create star object with new format data
         Star star = new Star(hipId, habitable, displayName, spectralClass, 
                               distance, xGalactic, yGalactic, zGalactic, absMag);
         
-        // Add star to map - use lowercase name as key for consistency
-        String nameKey = displayName.toLowerCase();
-        stars.put(nameKey, star);
-        
-        // Also store by Hip ID if available and non-zero
-        if (hipId > 0) {
-            stars.put("hip" + hipId, star);
-        }
+        // Add star once; the catalog indexes its Hip ID, the name is indexed in lowercase
+        int id = stars.add(star);
+        stars.putName(displayName, id);
     }
 
     // Parse star data in the old format (for backward compatibility)
-    private static void parseOldFormatStar(String[] parts, Map<String, Star> stars, int lineNum) throws NumberFormatException {
-        String systemName = parts[0].trim();
-        String name = parts[1].trim();
-        String stellarClass = parts[2].trim();
+    private static void parseOldFormatStar(CsvTokenizer csv, StarCatalog stars, int lineNum, ParseErrors errors) throws NumberFormatException {
+        String systemName = csv.string(0);
+        String name = csv.string(1);
+        String stellarClass = csv.string(2);
         
         // Handle Sun's distance explicitly (CSV shows 0, which is correct)
-        double distance = Double.parseDouble(parts[3].trim());
-        String ra = parts[4].trim();
-        String dec = parts[5].trim();
+        double distance = csv.parseDouble(3);
+        String ra = csv.string(4);
+        String dec = csv.string(5);
         
         // Handle Sun's mass explicitly
-        double mass = name.equalsIgnoreCase("Sun") ? 1.0 : Double.parseDouble(parts[6].trim());
-        double absMag = name.equalsIgnoreCase("Sun") ? 4.85 : Double.parseDouble(parts[7].trim()); // Use Sun's standard value
+        double mass = name.equalsIgnoreCase("Sun") ? 1.0 : csv.parseDouble(6);
+        double absMag = name.equalsIgnoreCase("Sun") ? 4.85 : csv.parseDouble(7); // Use Sun's standard value
 
         if (name.isEmpty()) {
-             System.err.println("Skipping star line #" + lineNum + ": Name is empty.");
+             errors.add("Skipping star line #", lineNum, ": Name is empty.");
              return;
         }
 
         Star star = new Star(name, stellarClass, distance, ra, dec, mass, absMag);
         
-        // Store by lowercase compound key (system+name) for unique identification
+        // Index by lowercase compound key (system+name) for unique identification
+        int id = stars.add(star);
         String key = (systemName + "_" + name).toLowerCase().replace(" ", "_");
-        stars.put(key, star);
+        stars.putName(key, id);
         
-        // Also store by name alone for backward compatibility, but only if there's no collision
-        String nameKey = name.toLowerCase();
-        if (!stars.containsKey(nameKey)) {
-            stars.put(nameKey, star);
-        }
+        // Also index by name alone for backward compatibility, but only if there's no collision
+        stars.putNameIfAbsent(name, id);
     }
 
     // Load planets from a resource path
-    public static List<Planet> loadPlanetsFromResources(String resourcePath, Map<String, Star> stars) throws IOException {
+    public static List<Planet> loadPlanetsFromResources(String resourcePath, StarCatalog stars) throws IOException {
         List<Planet> planets = new ArrayList<>();
         InputStream is = DataLoader.class.getClassLoader().getResourceAsStream(resourcePath);
         if (is == null) {
             System.err.println("Warning: Could not find planet data as resource: " + resourcePath + ". Trying filesystem.");
             return loadPlanetsFromFile(resourcePath, stars);
         }
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            parsePlanets(reader, planets, stars);
+        try (InputStream in = is) {
+            parsePlanets(new CsvTokenizer(ByteBuffer.wrap(in.readAllBytes())), planets, stars);
         }
          System.out.println("Loaded " + planets.size() + " planets from resource: " + resourcePath);
         return planets;
     }
     
     // Load planets from an external file path
-     public static List<Planet> loadPlanetsFromFile(String filePath, Map<String, Star> stars) throws IOException {
+     public static List<Planet> loadPlanetsFromFile(String filePath, StarCatalog stars) throws IOException {
         List<Planet> planets = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath, StandardCharsets.UTF_8))) {
-            parsePlanets(reader, planets, stars);
-        }
+        parsePlanets(new CsvTokenizer(ByteBuffer.wrap(Files.readAllBytes(Paths.get(filePath)))), planets, stars);
         System.out.println("Loaded " + planets.size() + " planets from file: " + filePath);
         return planets;
     }
     
 
-    private static void parsePlanets(BufferedReader reader, List<Planet> planets, Map<String, Star> stars) throws IOException {
-         String line;
-         boolean headerSkipped = false;
-         int lineNum = 0;
-         while ((line = reader.readLine()) != null) {
-            lineNum++;
-             if (!headerSkipped) {
-                 headerSkipped = true;
-                  if (!line.toLowerCase().startsWith("name,star,dfs")) {
-                      System.err.println("Warning: Unexpected header in planets file: " + line);
-                 }
-                 continue; // Skip header row
-             }
-              line = line.trim();
-              if (line.isEmpty() || line.startsWith("#") || line.matches("^,*")) continue; // Skip empty lines, comments, or lines with only commas
-
-             String[] parts = line.split(",", -1);
+    private static void parsePlanets(CsvTokenizer csv, List<Planet> planets, StarCatalog stars) {
+         if (csv.nextLine() && !csv.line().toLowerCase().startsWith("name,star,dfs")) {
+             System.err.println("Warning: Unexpected header in planets file: " + csv.line());
+         }
+         while (csv.nextLine()) {
+              if (csv.isBlankOrComment()) continue; // Skip empty lines, comments, or lines with only commas
 
-              if (parts.length < 6) {
-                  System.err.println("Skipping malformed planet line #" + lineNum + ": " + line + " (Expected 6+ fields, got " + parts.length + ")");
+              int lineNum = csv.lineNumber();
+              if (csv.fieldCount() < 6) {
+                  System.err.println("Skipping malformed planet line #" + lineNum + ": " + csv.line() + " (Expected 6+ fields, got " + csv.fieldCount() + ")");
                   continue;
               }
 
              try {
-                 String name = parts[0].trim();
-                 String starName = parts[1].trim();
-                 double dfs = Double.parseDouble(parts[2].trim());
-                 double mass = Double.parseDouble(parts[3].trim());
-                 double radius = Double.parseDouble(parts[4].trim());
+                 String name = csv.string(0);
+                 String starName = csv.string(1);
+                 double dfs = csv.parseDouble(2);
+                 double mass = csv.parseDouble(3);
+                 double radius = csv.parseDouble(4);
                  // Simple check for rings (1 or "yes", case-insensitive)
-                 String ringsStr = parts[5].trim().toLowerCase();
-                 boolean hasRings = ringsStr.equals("1") || ringsStr.equals("yes");
+                 boolean hasRings = csv.equals(5, "1") || csv.equalsIgnoreCase(5, "yes");
                  
                  if (name.isEmpty() || starName.isEmpty()) {
                       System.err.println("Skipping planet line #" + lineNum + ": Name or Star Name is empty.");
                       continue;
                  }
 
-                 Star hostStar = stars.get(starName.toLowerCase());
+                 Star hostStar = stars.findByName(starName);
                  if (hostStar != null) {
                      Planet planet = new Planet(name, hostStar, dfs, mass, radius, hasRings);
                      planets.add(planet);
@@ -242,12 +364,10 @@ public class DataLoader {
                      System.err.println("Skipping planet " + name + " on line #" + lineNum + ": Could not find host star '" + starName + "'. Ensure stars are loaded first and names match (case-insensitive).");
                  }
              } catch (NumberFormatException e) {
-                 System.err.println("Skipping planet line #" + lineNum + " due to number format error: " + line + " - " + e.getMessage());
-             } catch (ArrayIndexOutOfBoundsException e) {
-                 System.err.println("Skipping planet line #" + lineNum + " due to missing fields: " + line);
+                 System.err.println("Skipping planet line #" + lineNum + " due to number format error: " + csv.line() + " - " + e.getMessage());
              } catch (Exception e) {
-                 System.err.println("Skipping planet line #" + lineNum + " due to error creating Planet object: " + line + " - " + e.getMessage());
+                 System.err.println("Skipping planet line #" + lineNum + " due to error creating Planet object: " + csv.line() + " - " + e.getMessage());
              }
          }
     }
-} 
\ No newline at end of file
+}
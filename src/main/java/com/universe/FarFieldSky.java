@@ -0,0 +1,298 @@
+package com.universe;
+
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3d;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+
+/**
+ * Stars beyond a radius, rendered into a cubemap around the camera and drawn as a skybox.
+ *
+ * Far stars barely move on screen as the camera travels: moving d light-years shifts a star at
+ * distance R by at most d / R radians. Each cube face remembers the position it was captured
+ * from, and once the stalest face's parallax error at the far-field radius exceeds
+ * MAX_PARALLAX_PIXELS on screen, all six faces are recaptured, one face per frame when
+ * amortized. A star belongs to the far field if it lies beyond the radius from the capture
+ * position of the face it is seen through, so the per-frame near field ({@link #keepNearField})
+ * is exactly what the faces leave out, even while a refresh is half done. That only holds while
+ * every face shows the same catalog at the same magnitude limit, so a change of either
+ * recaptures all six faces at once.
+ *
+ * Faces are captured with the sorted blending path of the shared {@link StarRenderer} into a
+ * half-float (RGBA16F) cubemap, using the standard cube face orientations.
+ */
+public class FarFieldSky {
+
+    private static final float MAX_PARALLAX_PIXELS = 1.0f;
+    private static final double MAX_STAR_DISTANCE = UniverseSim.MAX_STAR_DISTANCE;
+
+    // Cube face view directions and up vectors, in GL_TEXTURE_CUBE_MAP_POSITIVE_X + face order
+    private static final float[][] FACE_DIRECTIONS = {
+        {1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}
+    };
+    private static final float[][] FACE_UPS = {
+        {0, -1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}, {0, -1, 0}, {0, -1, 0}
+    };
+
+    private final StarRenderer renderer;
+    private final FrameUniforms frameUniforms;
+    private final double radius;
+    private final int faceSize;
+    private final boolean amortized;
+
+    private final ShaderProgram skyShader;
+    private final int skyVaoId; // Empty; sky.vert generates a full-screen triangle
+    private final int cubemapId;
+    private final int fboId;
+    private final int depthRenderbufferId;
+
+    // Capture position of each face
+    private final double[] faceX = new double[6];
+    private final double[] faceY = new double[6];
+    private final double[] faceZ = new double[6];
+    private boolean ready;       // Every face has been captured at least once
+    private int nextFace = -1;   // Next face to capture in the running refresh, or -1
+    private StarCatalog capturedCatalog;
+    private double capturedMagnitudeLimit = Double.NaN;
+
+    // Capture scratch state
+    private final Matrix4f faceView = new Matrix4f();
+    private final Matrix4f faceProjection = new Matrix4f();
+    private final Matrix4f faceViewProjection = new Matrix4f();
+    private final FrustumIntersection faceFrustum = new FrustumIntersection();
+    private final IntList faceIds = new IntList(4096);
+    private final IntList faceNodes = new IntList(1024);
+    private final StarDrawList faceDrawList = new StarDrawList(4096);
+    private final CullStats faceStats = new CullStats();
+
+    /**
+     * radius is the far-field radius (ly), faceSize the cubemap resolution. An amortized sky
+     * refreshes one face per frame instead of all six at once.
+     */
+    public FarFieldSky(StarRenderer renderer, FrameUniforms frameUniforms,
+                       double radius, int faceSize, boolean amortized) throws Exception {
+        this.renderer = renderer;
+        this.frameUniforms = frameUniforms;
+        this.radius = radius;
+        this.faceSize = faceSize;
+        this.amortized = amortized;
+
+        skyShader = new ShaderProgram("shaders/sky.vert", "shaders/sky.frag");
+        skyShader.use();
+        skyShader.setInt("skyTexture", 0);
+        skyShader.unuse();
+        skyVaoId = GL30.glGenVertexArrays();
+
+        GL11.glEnable(GL32.GL_TEXTURE_CUBE_MAP_SEAMLESS);
+        cubemapId = GL11.glGenTextures();
+        GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, cubemapId);
+        for (int face = 0; face < 6; face++) {
+            GL11.glTexImage2D(GL13.GL_TEXTURE_CUBE_MAP_POSITIVE_X + face, 0, GL30.GL_RGBA16F,
+                              faceSize, faceSize, 0, GL11.GL_RGBA, GL11.GL_FLOAT, 0L);
+        }
+        GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+        GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+        GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_WRAP_S, GL13.GL_CLAMP_TO_EDGE);
+        GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_WRAP_T, GL13.GL_CLAMP_TO_EDGE);
+        GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, 0);
+
+        depthRenderbufferId = GL30.glGenRenderbuffers();
+        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, depthRenderbufferId);
+        GL30.glRenderbufferStorage(GL30.GL_RENDERBUFFER, GL30.GL_DEPTH_COMPONENT32F, faceSize, faceSize);
+        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, 0);
+
+        fboId = GL30.glGenFramebuffers();
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fboId);
+        GL30.glFramebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER, depthRenderbufferId);
+        GL30.glFramebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0,
+                                    GL13.GL_TEXTURE_CUBE_MAP_POSITIVE_X, cubemapId, 0);
+        int status = GL30.glCheckFramebufferStatus(GL30.GL_FRAMEBUFFER);
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+        if (status != GL30.GL_FRAMEBUFFER_COMPLETE) {
+            throw new RuntimeException("Sky framebuffer incomplete: 0x" + Integer.toHexString(status));
+        }
+    }
+
+    /**
+     * Captures the faces that are due, starting a refresh when the catalog or the magnitude limit
+     * changed or the camera moved too far. Overwrites the frame uniforms and the viewport, so call
+     * it before the frame sets them. pixelsPerRadian is the screen's, cot(fovY / 2) * windowHeight / 2.
+     */
+    public void update(StarCatalog stars, StarOctree index, Vector3d cameraPos, double magnitudeLimit,
+                       float pixelsPerRadian, int windowWidth, int windowHeight) {
+        boolean contentChanged = false;
+        if (stars != capturedCatalog) {
+            // New ids; the draw order kept between captures is meaningless now
+            capturedCatalog = stars;
+            capturedMagnitudeLimit = magnitudeLimit;
+            faceDrawList.reset();
+            contentChanged = true;
+            nextFace = 0;
+        } else if (magnitudeLimit != capturedMagnitudeLimit) {
+            capturedMagnitudeLimit = magnitudeLimit;
+            contentChanged = true;
+            nextFace = 0;
+        } else if (nextFace < 0 && parallaxPixels(cameraPos, pixelsPerRadian) > MAX_PARALLAX_PIXELS) {
+            nextFace = 0;
+        }
+        if (nextFace < 0) return;
+
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fboId);
+        GL11.glViewport(0, 0, faceSize, faceSize);
+        // Only parallax refreshes are amortized: faces left stale by a new catalog or limit would
+        // be missing stars that keepNearField already hands to the sky
+        int lastFace = (ready && amortized && !contentChanged) ? nextFace : 5;
+        for (int face = nextFace; face <= lastFace; face++) {
+            captureFace(face, stars, index, cameraPos, magnitudeLimit);
+        }
+        nextFace = lastFace == 5 ? -1 : lastFace + 1;
+        if (nextFace < 0) {
+            ready = true;
+        }
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+        GL11.glViewport(0, 0, windowWidth, windowHeight);
+    }
+
+    // Largest on-screen shift, in pixels, of a far-field star since its face was captured
+    private float parallaxPixels(Vector3d cameraPos, float pixelsPerRadian) {
+        double maxMove2 = 0;
+        for (int face = 0; face < 6; face++) {
+            double dx = cameraPos.x - faceX[face], dy = cameraPos.y - faceY[face], dz = cameraPos.z - faceZ[face];
+            maxMove2 = Math.max(maxMove2, dx*dx + dy*dy + dz*dz);
+        }
+        return (float) (Math.sqrt(maxMove2) / radius * pixelsPerRadian);
+    }
+
+    private void captureFace(int face, StarCatalog stars, StarOctree index, Vector3d cameraPos, double magnitudeLimit) {
+        faceX[face] = cameraPos.x;
+        faceY[face] = cameraPos.y;
+        faceZ[face] = cameraPos.z;
+        float ex = (float) cameraPos.x, ey = (float) cameraPos.y, ez = (float) cameraPos.z;
+        float[] dir = FACE_DIRECTIONS[face], up = FACE_UPS[face];
+        faceView.setLookAt(ex, ey, ez, ex + dir[0], ey + dir[1], ez + dir[2], up[0], up[1], up[2]);
+        faceProjection.setPerspective((float) Math.toRadians(90.0), 1.0f, 0.01f, 10000.0f);
+        faceFrustum.set(faceProjection.mul(faceView, faceViewProjection));
+
+        GL30.glFramebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0,
+                                    GL13.GL_TEXTURE_CUBE_MAP_POSITIVE_X + face, cubemapId, 0);
+        GL11.glClearColor(0f, 0f, 0f, 0f);
+        GL11.glDepthMask(true);
+        GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
+        GL11.glClearColor(0f, 0f, 0f, 1f);
+
+        // A face spans 90 degrees over faceSize pixels, faceSize / 2 pixels per radian at its center
+        faceIds.clear();
+        faceNodes.clear();
+        faceStats.reset();
+        index.queryFrustum(faceFrustum, cameraPos.x, cameraPos.y, cameraPos.z, MAX_STAR_DISTANCE, magnitudeLimit,
+                           StarRenderer.aggregateMaxAngle(faceSize * 0.5f), faceIds, faceNodes, faceStats);
+        keepBeyond(stars.xs(), stars.ys(), stars.zs(), faceIds, cameraPos.x, cameraPos.y, cameraPos.z);
+        keepBeyond(index.aggregateXs(), index.aggregateYs(), index.aggregateZs(), faceNodes,
+                   cameraPos.x, cameraPos.y, cameraPos.z);
+        faceDrawList.build(stars, faceIds, cameraPos.x, cameraPos.y, cameraPos.z);
+
+        // Captures happen rarely, so they take the exact sorted path
+        frameUniforms.update(faceView, faceProjection, cameraPos, faceSize, faceSize);
+        boolean orderIndependent = renderer.isOrderIndependent();
+        renderer.setOrderIndependent(false);
+        renderer.begin(stars, index, faceProjection, faceSize);
+        for (int i = 0; i < faceNodes.size(); i++) {
+            renderer.addAggregate(faceNodes.get(i));
+        }
+        for (int i = 0; i < faceDrawList.size(); i++) {
+            renderer.addStar(faceDrawList.id(i), faceDrawList.distance(i));
+        }
+        renderer.render(faceSize, faceSize);
+        renderer.setOrderIndependent(orderIndependent);
+    }
+
+    // Keeps the ids whose position lies farther than the radius from the given point
+    private void keepBeyond(double[] xs, double[] ys, double[] zs, IntList ids, double x, double y, double z) {
+        double radius2 = radius * radius;
+        int kept = 0;
+        int[] array = ids.array();
+        for (int i = 0; i < ids.size(); i++) {
+            int id = array[i];
+            double dx = xs[id] - x, dy = ys[id] - y, dz = zs[id] - z;
+            if (dx*dx + dy*dy + dz*dz > radius2) array[kept++] = id;
+        }
+        ids.truncate(kept);
+    }
+
+    /**
+     * Removes from ids and nodes the stars and octree aggregates the sky already shows: those
+     * beyond the radius from the capture position of the face they are seen through from the
+     * camera. Aggregates go by their centroid. Keeps everything until the sky is ready.
+     */
+    public void keepNearField(StarCatalog stars, StarOctree index, IntList ids, IntList nodes, Vector3d cameraPos) {
+        if (!ready) return;
+        keepNearField(stars.xs(), stars.ys(), stars.zs(), ids, cameraPos);
+        if (!nodes.isEmpty()) {
+            keepNearField(index.aggregateXs(), index.aggregateYs(), index.aggregateZs(), nodes, cameraPos);
+        }
+    }
+
+    private void keepNearField(double[] xs, double[] ys, double[] zs, IntList ids, Vector3d cameraPos) {
+        double radius2 = radius * radius;
+        int kept = 0;
+        int[] array = ids.array();
+        for (int i = 0; i < ids.size(); i++) {
+            int id = array[i];
+            int face = faceOf(xs[id] - cameraPos.x, ys[id] - cameraPos.y, zs[id] - cameraPos.z);
+            double dx = xs[id] - faceX[face], dy = ys[id] - faceY[face], dz = zs[id] - faceZ[face];
+            if (dx*dx + dy*dy + dz*dz <= radius2) array[kept++] = id;
+        }
+        ids.truncate(kept);
+    }
+
+    /**
+     * Farthest distance from the camera a near-field star can have: the radius plus how far the
+     * camera moved from the stalest capture position.
+     */
+    public double nearFieldDistance(Vector3d cameraPos) {
+        if (!ready) return MAX_STAR_DISTANCE;
+        double maxMove2 = 0;
+        for (int face = 0; face < 6; face++) {
+            double dx = cameraPos.x - faceX[face], dy = cameraPos.y - faceY[face], dz = cameraPos.z - faceZ[face];
+            maxMove2 = Math.max(maxMove2, dx*dx + dy*dy + dz*dz);
+        }
+        return Math.min(radius + Math.sqrt(maxMove2), MAX_STAR_DISTANCE);
+    }
+
+    // Cube face a direction falls in, by its major axis
+    private static int faceOf(double x, double y, double z) {
+        double ax = Math.abs(x), ay = Math.abs(y), az = Math.abs(z);
+        if (ax >= ay && ax >= az) return x >= 0 ? 0 : 1;
+        if (ay >= az) return y >= 0 ? 2 : 3;
+        return z >= 0 ? 4 : 5;
+    }
+
+    /**
+     * Draws the sky behind everything else, using the view and projection of the frame uniforms.
+     */
+    public void draw() {
+        if (!ready) return;
+        GL11.glDisable(GL11.GL_DEPTH_TEST);
+        GL11.glDisable(GL11.GL_BLEND);
+        skyShader.use();
+        GL13.glActiveTexture(GL13.GL_TEXTURE0);
+        GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, cubemapId);
+        GL30.glBindVertexArray(skyVaoId);
+        GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, 3);
+        GL30.glBindVertexArray(0);
+        GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, 0);
+        skyShader.unuse();
+        GL11.glEnable(GL11.GL_DEPTH_TEST);
+    }
+
+    public void cleanup() {
+        GL30.glDeleteFramebuffers(fboId);
+        GL30.glDeleteRenderbuffers(depthRenderbufferId);
+        GL11.glDeleteTextures(cubemapId);
+        GL30.glDeleteVertexArrays(skyVaoId);
+        skyShader.cleanup();
+    }
+}
@@ -0,0 +1,162 @@
+package com.universe;
+
+import java.util.Arrays;
+
+/**
+ * Picks the star the camera is looking at, for the sidebar.
+ *
+ * Candidates come from the octree, queried with a wider cone than the selection cone plus a
+ * sphere of nearby stars, and are kept between frames. While the camera stays within
+ * MOVE_THRESHOLD of the query position and ROTATE_THRESHOLD of its direction, every star that
+ * can be in the selection cone is guaranteed to be in that set, so only the cached candidates
+ * are rescored. A camera that has not moved at all reuses the previous result outright.
+ * Angles are compared through dot products; the score uses the chord length 2*sin(angle/2),
+ * which tracks the angle closely within the 15 degree cone and needs no acos.
+ */
+public class FocusSelector {
+
+    private static final double MAX_ANGLE = Math.toRadians(15.0); // Narrower detection cone (was 45 degrees)
+    private static final double COS_MAX_ANGLE = Math.cos(MAX_ANGLE);
+    private static final double MAX_CHORD = 2 * Math.sin(MAX_ANGLE / 2);
+    private static final double MAX_DISTANCE = 500.0;   // Only stars within 500 ly are considered
+    private static final double SCORE_DISTANCE = 100.0; // Farther candidates only serve as a fallback
+    private static final int SCORED_CANDIDATES = 10;    // Only the nearest few candidates are scored
+
+    // Reuse limits for the cached candidates
+    private static final double MOVE_THRESHOLD = 0.5; // Light-years
+    private static final double ROTATE_THRESHOLD = Math.toRadians(2.0);
+    private static final double COS_ROTATE_THRESHOLD = Math.cos(ROTATE_THRESHOLD);
+    // The cached cone is widened by the rotation limit plus the parallax a move can cause for
+    // stars outside NEAR_RADIUS: asin(MOVE_THRESHOLD / (NEAR_RADIUS - MOVE_THRESHOLD)) < 3 degrees
+    private static final double PARALLAX_MARGIN = Math.toRadians(3.0);
+    private static final double NEAR_RADIUS = MOVE_THRESHOLD * (1 + 1 / Math.sin(PARALLAX_MARGIN)) + 0.1;
+    private static final double COS_QUERY_ANGLE = Math.cos(MAX_ANGLE + ROTATE_THRESHOLD + PARALLAX_MARGIN);
+
+    private final IntList candidates = new IntList(256);
+
+    // State of the cached query
+    private StarOctree cachedIndex;
+    private double queryX, queryY, queryZ;
+    private double queryDirX, queryDirY, queryDirZ;
+
+    // Previous result, valid for exactly this camera pose
+    private double lastX, lastY, lastZ, lastDirX, lastDirY, lastDirZ;
+    private int lastResult = StarCatalog.NOT_FOUND;
+    private boolean hasLast;
+
+    // Nearest candidates in the selection cone, ascending by distance
+    private final int[] nearestIds = new int[SCORED_CANDIDATES];
+    private final double[] nearestDist2 = new double[SCORED_CANDIDATES];
+
+    /**
+     * Returns the id of the star closest to the center of view, or NOT_FOUND.
+     * dir must be normalized. Results are tied to index; a different index starts over.
+     */
+    public int select(StarCatalog stars, StarOctree index, double x, double y, double z,
+                      double dirX, double dirY, double dirZ) {
+        if (index != cachedIndex) {
+            cachedIndex = null;
+            hasLast = false;
+        }
+        if (hasLast && x == lastX && y == lastY && z == lastZ
+                && dirX == lastDirX && dirY == lastDirY && dirZ == lastDirZ) {
+            return lastResult;
+        }
+
+        if (!canReuse(x, y, z, dirX, dirY, dirZ)) {
+            refresh(index, x, y, z, dirX, dirY, dirZ);
+        }
+        lastResult = score(stars, x, y, z, dirX, dirY, dirZ);
+        lastX = x; lastY = y; lastZ = z;
+        lastDirX = dirX; lastDirY = dirY; lastDirZ = dirZ;
+        hasLast = true;
+        return lastResult;
+    }
+
+    private boolean canReuse(double x, double y, double z, double dirX, double dirY, double dirZ) {
+        if (cachedIndex == null) return false;
+        double dx = x - queryX, dy = y - queryY, dz = z - queryZ;
+        if (dx*dx + dy*dy + dz*dz > MOVE_THRESHOLD * MOVE_THRESHOLD) return false;
+        return dirX*queryDirX + dirY*queryDirY + dirZ*queryDirZ >= COS_ROTATE_THRESHOLD;
+    }
+
+    // Collects a superset of the selection cone that stays valid within the reuse limits
+    private void refresh(StarOctree index, double x, double y, double z, double dirX, double dirY, double dirZ) {
+        candidates.clear();
+        index.queryCone(x, y, z, dirX, dirY, dirZ, COS_QUERY_ANGLE, MAX_DISTANCE + MOVE_THRESHOLD, candidates);
+        index.querySphere(x, y, z, NEAR_RADIUS, candidates);
+
+        // Stars close by can be returned by both queries
+        int[] ids = candidates.array();
+        int count = candidates.size();
+        Arrays.sort(ids, 0, count);
+        candidates.clear();
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) candidates.add(ids[i]);
+        }
+
+        cachedIndex = index;
+        queryX = x; queryY = y; queryZ = z;
+        queryDirX = dirX; queryDirY = dirY; queryDirZ = dirZ;
+    }
+
+    private int score(StarCatalog stars, double x, double y, double z, double dirX, double dirY, double dirZ) {
+        double[] xs = stars.xs(), ys = stars.ys(), zs = stars.zs();
+        double maxDist2 = MAX_DISTANCE * MAX_DISTANCE;
+
+        // Keep the nearest few stars inside the selection cone, by insertion
+        int nearest = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            int id = candidates.get(i);
+            double dx = xs[id] - x, dy = ys[id] - y, dz = zs[id] - z;
+            double dist2 = dx*dx + dy*dy + dz*dz;
+            if (dist2 > maxDist2 || dist2 == 0.0) continue;
+            if (nearest == SCORED_CANDIDATES && dist2 >= nearestDist2[nearest - 1]) continue;
+            double dot = dx*dirX + dy*dirY + dz*dirZ;
+            if (dot <= COS_MAX_ANGLE * Math.sqrt(dist2)) continue;
+
+            int slot = Math.min(nearest, SCORED_CANDIDATES - 1);
+            while (slot > 0 && nearestDist2[slot - 1] > dist2) {
+                nearestIds[slot] = nearestIds[slot - 1];
+                nearestDist2[slot] = nearestDist2[slot - 1];
+                slot--;
+            }
+            nearestIds[slot] = id;
+            nearestDist2[slot] = dist2;
+            if (nearest < SCORED_CANDIDATES) nearest++;
+        }
+        if (nearest == 0) return StarCatalog.NOT_FOUND;
+
+        // Prioritize closer stars and those more centered in view
+        int closest = StarCatalog.NOT_FOUND;
+        double closestScore = Double.MAX_VALUE;
+        for (int i = 0; i < nearest; i++) {
+            int id = nearestIds[i];
+            double distanceToStar = Math.sqrt(nearestDist2[i]);
+
+            // Skip extremely far stars even within the cone
+            if (distanceToStar > SCORE_DISTANCE) continue;
+
+            double cos = ((xs[id] - x)*dirX + (ys[id] - y)*dirY + (zs[id] - z)*dirZ) / distanceToStar;
+            double chord = Math.sqrt(Math.max(0.0, 2.0 * (1.0 - cos)));
+
+            // Combined score (lower is better) that weights the angle more than the distance
+            double distanceWeight = Math.min(distanceToStar / 10.0, 1.0); // 0-1 range
+            double angleWeight = chord / MAX_CHORD; // 0-1 range
+            double score = angleWeight * 0.7 + distanceWeight * 0.3;
+
+            // For very close stars (< 5ly), prioritize them even more
+            if (distanceToStar < 5.0) {
+                score *= 0.5;
+            }
+
+            if (score < closestScore) {
+                closest = id;
+                closestScore = score;
+            }
+        }
+
+        // If no good candidates from closest stars, just pick the nearest
+        return closest != StarCatalog.NOT_FOUND ? closest : nearestIds[0];
+    }
+}
@@ -0,0 +1,123 @@
+package com.universe;
+
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL33;
+
+/**
+ * CPU and GPU time of each phase of a frame, for the benchmark.
+ *
+ * The frame is split by {@link #mark} calls at the end of each phase. On the CPU that is the time
+ * since the previous mark; on the GPU a GL_TIMESTAMP query is issued at the start of the frame
+ * and at each mark, so a phase's GPU time is the gap between consecutive timestamps (unlike
+ * GL_TIME_ELAPSED queries, these can't nest or overlap). Results are read back FRAMES_IN_FLIGHT
+ * frames later, by which time they are normally available, so reading them doesn't stall the
+ * pipeline.
+ *
+ * Until {@link #beginFrame} is called with a flight name, every call is a no-op and no queries
+ * exist, so the interactive mode pays nothing for the marks.
+ */
+public class FrameProfiler {
+
+    public static final String[] PHASES = {"sky_update", "cull", "sky_draw", "stars", "ui", "swap"};
+    public static final int SKY_UPDATE = 0, CULL = 1, SKY_DRAW = 2, STARS = 3, UI = 4, SWAP = 5;
+
+    private static final int FRAMES_IN_FLIGHT = 4;
+
+    private final BenchmarkReport report;
+    private final boolean gpuTimers;
+
+    // Current frame; flight is null while not recording
+    private String flight;
+    private int nextPhase;
+    private long lastMark;
+    private final double[] cpuMillis = new double[PHASES.length];
+
+    // GPU timestamp queries, one set per frame in flight
+    private int[][] queries;
+    private final String[] pendingFlight = new String[FRAMES_IN_FLIGHT];
+    private final long[] timestamps = new long[PHASES.length + 1];
+    private final double[] gpuMillis = new double[PHASES.length];
+    private int frameCount;
+
+    public FrameProfiler(BenchmarkReport report) {
+        this.report = report;
+        // Zero counter bits means the implementation can't do timestamps
+        this.gpuTimers = GL15.glGetQueryi(GL33.GL_TIMESTAMP, GL15.GL_QUERY_COUNTER_BITS) > 0;
+        report.describe("gpu_timer_queries", gpuTimers);
+    }
+
+    /**
+     * Starts timing a frame of the given flight, or nothing if flight is null.
+     */
+    public void beginFrame(String flight) {
+        this.flight = flight;
+        if (flight == null) return;
+        nextPhase = 0;
+        if (gpuTimers) {
+            if (queries == null) {
+                queries = new int[FRAMES_IN_FLIGHT][PHASES.length + 1];
+                for (int[] frame : queries) {
+                    GL15.glGenQueries(frame);
+                }
+            }
+            int slot = frameCount % FRAMES_IN_FLIGHT;
+            collect(slot);
+            GL33.glQueryCounter(queries[slot][0], GL33.GL_TIMESTAMP);
+        }
+        lastMark = System.nanoTime();
+    }
+
+    /**
+     * Ends the given phase (and any skipped ones before it, as empty) of the current frame.
+     */
+    public void mark(int phase) {
+        if (flight == null) return;
+        long now = System.nanoTime();
+        for (; nextPhase <= phase; nextPhase++) {
+            cpuMillis[nextPhase] = nextPhase == phase ? (now - lastMark) / 1e6 : 0.0;
+            if (gpuTimers) {
+                GL33.glQueryCounter(queries[frameCount % FRAMES_IN_FLIGHT][nextPhase + 1], GL33.GL_TIMESTAMP);
+            }
+        }
+        lastMark = now;
+    }
+
+    public void endFrame() {
+        if (flight == null) return;
+        mark(PHASES.length - 1);
+        report.addCpuFrame(flight, cpuMillis);
+        if (gpuTimers) {
+            pendingFlight[frameCount % FRAMES_IN_FLIGHT] = flight;
+        }
+        frameCount++;
+        flight = null;
+    }
+
+    /** Reads back every outstanding GPU result; call after the last frame. */
+    public void finish() {
+        for (int slot = 0; slot < FRAMES_IN_FLIGHT; slot++) {
+            collect((frameCount + slot) % FRAMES_IN_FLIGHT);
+        }
+    }
+
+    // Waits for and records a frame's timestamps, if that slot has one outstanding
+    private void collect(int slot) {
+        if (pendingFlight[slot] == null) return;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = GL33.glGetQueryObjecti64(queries[slot][i], GL15.GL_QUERY_RESULT);
+        }
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            gpuMillis[phase] = (timestamps[phase + 1] - timestamps[phase]) / 1e6;
+        }
+        report.addGpuFrame(pendingFlight[slot], gpuMillis);
+        pendingFlight[slot] = null;
+    }
+
+    public void cleanup() {
+        if (queries != null) {
+            for (int[] frame : queries) {
+                GL15.glDeleteQueries(frame);
+            }
+        }
+    }
+}
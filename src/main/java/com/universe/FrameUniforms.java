@@ -0,0 +1,69 @@
+package com.universe;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3d;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Per-frame shader state (camera matrices, camera position and screen size) in one std140
+ * uniform buffer, written once per frame and shared by every program that declares:
+ *
+ * <pre>
+ * layout (std140) uniform FrameData {
+ *     mat4 view;
+ *     mat4 projection;
+ *     vec3 cameraPos;
+ *     vec2 screenSize;
+ * };
+ * </pre>
+ *
+ * {@link ShaderProgram} binds that block to {@link #BINDING} when it links.
+ */
+public class FrameUniforms {
+
+    public static final String BLOCK_NAME = "FrameData";
+    public static final int BINDING = 0;
+
+    // std140 offsets in floats: mat4 columns are vec4-aligned, vec3 takes a full vec4 slot
+    private static final int VIEW_OFFSET = 0;
+    private static final int PROJECTION_OFFSET = 16;
+    private static final int CAMERA_POS_OFFSET = 32;
+    private static final int SCREEN_SIZE_OFFSET = 36;
+    private static final int SIZE_FLOATS = 40; // Block size rounded up to a vec4
+
+    private final int uboId;
+    private final FloatBuffer data = BufferUtils.createFloatBuffer(SIZE_FLOATS);
+
+    public FrameUniforms() {
+        uboId = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, uboId);
+        GL15.glBufferData(GL31.GL_UNIFORM_BUFFER, (long) SIZE_FLOATS * Float.BYTES, GL15.GL_DYNAMIC_DRAW);
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, 0);
+        GL31.glBindBufferBase(GL31.GL_UNIFORM_BUFFER, BINDING, uboId);
+    }
+
+    /**
+     * Uploads this frame's camera and screen state. Call once per frame before drawing.
+     */
+    public void update(Matrix4f view, Matrix4f projection, Vector3d cameraPos, int screenWidth, int screenHeight) {
+        view.get(VIEW_OFFSET, data);
+        projection.get(PROJECTION_OFFSET, data);
+        data.put(CAMERA_POS_OFFSET, (float) cameraPos.x);
+        data.put(CAMERA_POS_OFFSET + 1, (float) cameraPos.y);
+        data.put(CAMERA_POS_OFFSET + 2, (float) cameraPos.z);
+        data.put(SCREEN_SIZE_OFFSET, screenWidth);
+        data.put(SCREEN_SIZE_OFFSET + 1, screenHeight);
+
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, uboId);
+        GL15.glBufferSubData(GL31.GL_UNIFORM_BUFFER, 0, data);
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, 0);
+    }
+
+    public void cleanup() {
+        GL15.glDeleteBuffers(uboId);
+    }
+}
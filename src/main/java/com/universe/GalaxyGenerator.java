@@ -0,0 +1,345 @@
+package com.universe;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Generates synthetic star catalogs of any size for stress testing, in the stars.csv format
+ * (Hip,Hab?,Display Name,Spectral Class,Distance,Xg,Yg,Zg,AbsMag; parsecs, galactic axes with
+ * X towards the galactic center) and optionally as the loader's binary cache and as a tile file.
+ *
+ * Positions follow a simple Milky Way model within a sphere around the Sun: exponential thin and
+ * thick disks plus an oblate exponential bulge, sampled exactly by rejection against a grid of
+ * per-cell density bounds. Spectral classes follow the main-sequence number fractions, with some
+ * giants and white dwarfs; the bulge and thick disk are old populations without O, B and A stars.
+ *
+ * Output is reproducible: stars are generated in fixed-size chunks, each from its own random
+ * stream derived from the seed and the chunk index, so the result doesn't depend on the number
+ * of threads. Chunks are generated in parallel and written in order as they complete. The CSV is
+ * streamed; the binary outputs need the whole catalog in memory.
+ */
+public class GalaxyGenerator {
+
+    private static final int CHUNK_STARS = 65536;
+    private static final int CHUNKS_PER_WORKER = 2; // Chunks in flight per worker, bounding memory
+
+    // Galactic model, in parsecs
+    private static final double SUN_TO_CENTER = 8178.0;
+    private static final double THIN_SCALE_LENGTH = 2600.0, THIN_SCALE_HEIGHT = 300.0;
+    private static final double THICK_SCALE_LENGTH = 3600.0, THICK_SCALE_HEIGHT = 900.0;
+    private static final double THICK_LOCAL_RATIO = 0.12; // Thick to thin density in the plane at the Sun
+    private static final double BULGE_SCALE = 500.0, BULGE_FLATTENING = 0.5;
+    private static final double BULGE_DENSITY = 113.0; // Relative to the thin disk at the Sun; ~30% of its stars
+    private static final int GRID_CELLS = 64; // Per axis of the sampling grid
+
+    // Main-sequence spectral classes: cumulative number fraction, absolute magnitude at subclass 0 and 9
+    private static final char[] CLASS_LETTERS = {'O', 'B', 'A', 'F', 'G', 'K', 'M'};
+    private static final double[] CLASS_FRACTIONS = {0.0000003, 0.0013, 0.006, 0.03, 0.076, 0.121, 0.7645};
+    private static final double[] CLASS_MAG_FIRST = {-5.8, -4.0, 0.6, 2.6, 4.4, 5.9, 8.8};
+    private static final double[] CLASS_MAG_LAST = {-4.1, 0.3, 2.5, 4.2, 5.7, 8.6, 16.0};
+    private static final double GIANT_FRACTION = 0.01;
+    private static final double WHITE_DWARF_FRACTION = 0.05;
+    private static final double MAIN_SEQUENCE_SCATTER = 0.3; // Magnitudes
+
+    private static final String HEADER = "Hip,Hab?,Display Name,Spectral Class,Distance,Xg,Yg,Zg,AbsMag\n";
+    private static final String SUN_ROW = "0,1,Sun (Sol),G2V,0,0,0,0,4.85\n";
+
+    private final long seed;
+    private final double radius;
+    private final double[] classCumulative = new double[CLASS_FRACTIONS.length];
+
+    // Sampling grid over the cube around the Sun: per-cell density bound and cumulative weight
+    private final double cellSize;
+    private final double[] cellBound;
+    private final double[] cellCumulative;
+
+    /**
+     * @param radius stars are generated within this distance of the Sun (parsecs)
+     */
+    public GalaxyGenerator(long seed, double radius) {
+        this.seed = seed;
+        this.radius = radius;
+        double sum = 0;
+        for (double fraction : CLASS_FRACTIONS) sum += fraction;
+        double cumulative = 0;
+        for (int i = 0; i < CLASS_FRACTIONS.length; i++) {
+            cumulative += CLASS_FRACTIONS[i] / sum;
+            classCumulative[i] = cumulative;
+        }
+
+        // Every component falls off with distance from the center and from the plane, so the
+        // density at a cell's point nearest to both bounds the density anywhere in the cell
+        int cells = GRID_CELLS * GRID_CELLS * GRID_CELLS;
+        cellSize = 2 * radius / GRID_CELLS;
+        cellBound = new double[cells];
+        cellCumulative = new double[cells];
+        double total = 0;
+        double cellVolume = cellSize * cellSize * cellSize;
+        for (int cell = 0; cell < cells; cell++) {
+            int ix = cell % GRID_CELLS, iy = (cell / GRID_CELLS) % GRID_CELLS, iz = cell / (GRID_CELLS * GRID_CELLS);
+            double x0 = -radius + ix * cellSize, y0 = -radius + iy * cellSize, z0 = -radius + iz * cellSize;
+            double x1 = x0 + cellSize, y1 = y0 + cellSize, z1 = z0 + cellSize;
+            double dx = Math.max(0.0, Math.max(x0, -x1)), dy = Math.max(0.0, Math.max(y0, -y1)), dz = Math.max(0.0, Math.max(z0, -z1));
+            if (dx*dx + dy*dy + dz*dz <= radius * radius) {
+                double cx = Math.max(0.0, Math.max(x0 - SUN_TO_CENTER, SUN_TO_CENTER - x1));
+                double cy = Math.max(0.0, Math.max(y0, -y1));
+                cellBound[cell] = density(Math.sqrt(cx*cx + cy*cy), dz);
+                total += cellBound[cell] * cellVolume;
+            }
+            cellCumulative[cell] = total;
+        }
+    }
+
+    // Relative stellar density at galactocentric radius r (in the plane) and height z
+    private static double density(double r, double z) {
+        z = Math.abs(z);
+        double thin = Math.exp(-(r - SUN_TO_CENTER) / THIN_SCALE_LENGTH - z / THIN_SCALE_HEIGHT);
+        double thick = THICK_LOCAL_RATIO * Math.exp(-(r - SUN_TO_CENTER) / THICK_SCALE_LENGTH - z / THICK_SCALE_HEIGHT);
+        double zb = z / BULGE_FLATTENING;
+        double bulge = BULGE_DENSITY * Math.exp(-Math.sqrt(r * r + zb * zb) / BULGE_SCALE);
+        return thin + thick + bulge;
+    }
+
+    // One chunk of generated stars: its CSV rows and, if asked for, the same stars as a catalog
+    private static class Chunk {
+        final byte[] csv;
+        final StarCatalog stars; // Null unless a binary output was asked for
+
+        Chunk(byte[] csv, StarCatalog stars) {
+            this.csv = csv;
+            this.stars = stars;
+        }
+    }
+
+    /**
+     * Generates stars [first, first + count) of the catalog. The same arguments always give the
+     * same stars.
+     */
+    private Chunk generateChunk(int chunkIndex, long first, int count, boolean buildCatalog) {
+        SplittableRandom random = new SplittableRandom(mix64(seed ^ mix64(chunkIndex + 1)));
+        StringBuilder csv = new StringBuilder(count * 64);
+        StarCatalog stars = buildCatalog ? new StarCatalog(count) : null;
+        double[] position = new double[4];
+        for (int i = 0; i < count; i++) {
+            boolean old = samplePosition(random, position);
+            // Coordinates exactly as they read back from the CSV
+            long mx = Math.round(position[0] * 1000), my = Math.round(position[1] * 1000), mz = Math.round(position[2] * 1000);
+            double x = mx / 1000.0, y = my / 1000.0, z = mz / 1000.0;
+            long md = Math.round(Math.sqrt(x*x + y*y + z*z) * 1000);
+            String spectral = sampleSpectralClass(random, old, position);
+            long mm = Math.round(position[3] * 100);
+
+            String name = "GEN " + (first + i + 1);
+            csv.append("0,,").append(name).append(',').append(spectral).append(',');
+            appendFixed(csv, md, 1000).append(',');
+            appendFixed(csv, mx, 1000).append(',');
+            appendFixed(csv, my, 1000).append(',');
+            appendFixed(csv, mz, 1000).append(',');
+            appendFixed(csv, mm, 100).append('\n');
+
+            if (stars != null) {
+                Star star = new Star(0, false, name, spectral, md / 1000.0, x, y, z, mm / 100.0);
+                int id = stars.add(star);
+                stars.putName(name, id);
+            }
+        }
+        return new Chunk(csv.toString().getBytes(StandardCharsets.US_ASCII), stars);
+    }
+
+    /**
+     * Samples a position (parsecs from the Sun) into out[0..2] and returns whether it belongs to
+     * an old population (bulge or thick disk).
+     */
+    private boolean samplePosition(SplittableRandom random, double[] out) {
+        double total = cellCumulative[cellCumulative.length - 1];
+        while (true) {
+            int cell = Arrays.binarySearch(cellCumulative, random.nextDouble() * total);
+            cell = cell >= 0 ? cell + 1 : -cell - 1;
+            if (cell >= cellCumulative.length) continue;
+            int ix = cell % GRID_CELLS, iy = (cell / GRID_CELLS) % GRID_CELLS, iz = cell / (GRID_CELLS * GRID_CELLS);
+            double x = -radius + (ix + random.nextDouble()) * cellSize;
+            double y = -radius + (iy + random.nextDouble()) * cellSize;
+            double z = -radius + (iz + random.nextDouble()) * cellSize;
+            if (x*x + y*y + z*z > radius * radius) continue;
+
+            double cx = x - SUN_TO_CENTER;
+            double r = Math.sqrt(cx*cx + y*y);
+            double thin = Math.exp(-(r - SUN_TO_CENTER) / THIN_SCALE_LENGTH - Math.abs(z) / THIN_SCALE_HEIGHT);
+            double all = density(r, z);
+            double u = random.nextDouble() * cellBound[cell];
+            if (u >= all) continue;
+            out[0] = x;
+            out[1] = y;
+            out[2] = z;
+            return u >= thin; // The thin disk's share of the accepted range is the young population
+        }
+    }
+
+    // Picks a spectral class and stores the absolute magnitude in out[3]
+    private String sampleSpectralClass(SplittableRandom random, boolean old, double[] out) {
+        double u = random.nextDouble();
+        if (u < WHITE_DWARF_FRACTION) {
+            int subclass = random.nextInt(10);
+            out[3] = 10.0 + subclass * 0.5 + random.nextDouble() * 0.5;
+            return "DA" + subclass;
+        }
+        if (u < WHITE_DWARF_FRACTION + GIANT_FRACTION) {
+            double kind = random.nextDouble();
+            char letter = kind < 0.7 ? 'K' : kind < 0.85 ? 'G' : 'M';
+            out[3] = 0.5 + gaussian(random) * 0.7;
+            return letter + Integer.toString(random.nextInt(10)) + "III";
+        }
+        while (true) {
+            int index = Arrays.binarySearch(classCumulative, random.nextDouble());
+            index = index >= 0 ? index : -index - 1;
+            index = Math.min(index, CLASS_LETTERS.length - 1);
+            if (old && index <= 2) continue; // O, B and A stars have left the main sequence there
+            int subclass = random.nextInt(10);
+            double mag = CLASS_MAG_FIRST[index] + (CLASS_MAG_LAST[index] - CLASS_MAG_FIRST[index]) * subclass / 9.0;
+            out[3] = mag + gaussian(random) * MAIN_SEQUENCE_SCATTER;
+            return CLASS_LETTERS[index] + Integer.toString(subclass) + "V";
+        }
+    }
+
+    // Standard normal deviate (Box-Muller)
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble(); // (0, 1]
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * random.nextDouble());
+    }
+
+    // Fixed-point decimal of value / scale, with as many fraction digits as scale has zeros
+    private static StringBuilder appendFixed(StringBuilder out, long value, int scale) {
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        out.append(value / scale).append('.');
+        String fraction = Long.toString(value % scale + scale);
+        return out.append(fraction, 1, fraction.length());
+    }
+
+    // Stafford's mix13 finalizer, spreading nearby seeds over unrelated random streams
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Writes the Sun and starCount generated stars as CSV. If buildCatalog is set, also returns
+     * them as a catalog (exactly what parsing the CSV would give), otherwise returns null.
+     */
+    public StarCatalog writeCsv(Path output, long starCount, boolean buildCatalog) throws IOException {
+        if (buildCatalog && starCount >= Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many stars for an in-memory catalog: " + starCount);
+        }
+        int chunks = (int) ((starCount + CHUNK_STARS - 1) / CHUNK_STARS);
+        int window = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_WORKER;
+        ArrayDeque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+        StarCatalog catalog = null;
+        if (buildCatalog) {
+            catalog = new StarCatalog((int) starCount + 1);
+            int sun = catalog.add(new Star(0, true, "Sun (Sol)", "G2V", 0.0, 0.0, 0.0, 0.0, 4.85));
+            catalog.putName("Sun (Sol)", sun);
+        }
+
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 20)) {
+            out.write((HEADER + SUN_ROW).getBytes(StandardCharsets.US_ASCII));
+            int next = 0;
+            while (next < chunks || !inFlight.isEmpty()) {
+                while (next < chunks && inFlight.size() < window) {
+                    int chunkIndex = next++;
+                    long first = (long) chunkIndex * CHUNK_STARS;
+                    int count = (int) Math.min(CHUNK_STARS, starCount - first);
+                    inFlight.add(CompletableFuture.supplyAsync(
+                            () -> generateChunk(chunkIndex, first, count, buildCatalog), ForkJoinPool.commonPool()));
+                }
+                Chunk chunk = inFlight.poll().join();
+                out.write(chunk.csv);
+                if (catalog != null) {
+                    catalog.addAll(chunk.stars);
+                }
+            }
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return catalog;
+    }
+
+    /**
+     * GalaxyGenerator &lt;starCount&gt; &lt;output.csv&gt; [--seed N] [--radius parsecs]
+     * [--cache] [--tiles output.tiles]
+     * --cache also writes the binary cache the loader picks up next to the CSV.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            exitWithUsage("Missing star count or output file");
+        }
+        Path output = Paths.get(args[1]);
+        long starCount = 0;
+        long seed = 1;
+        double radius = 1000.0;
+        boolean cache = false;
+        Path tiles = null;
+        try {
+            starCount = Long.parseLong(args[0]);
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--seed": seed = Long.parseLong(optionValue(args, i++)); break;
+                    case "--radius": radius = Double.parseDouble(optionValue(args, i++)); break;
+                    case "--cache": cache = true; break;
+                    case "--tiles": tiles = Paths.get(optionValue(args, i++)); break;
+                    default: exitWithUsage("Unknown option: " + args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            exitWithUsage("Invalid number (" + e.getMessage() + ")");
+        }
+        if (starCount < 0) {
+            exitWithUsage("Star count must not be negative: " + starCount);
+        }
+        if (!(radius > 0) || Double.isInfinite(radius)) {
+            exitWithUsage("Radius must be a positive number of parsecs: " + radius);
+        }
+
+        long startTime = System.nanoTime();
+        GalaxyGenerator generator = new GalaxyGenerator(seed, radius);
+        StarCatalog stars = generator.writeCsv(output, starCount, cache || tiles != null);
+        System.out.printf("Generated %d stars within %.0f pc (seed %d) into %s in %.1f ms%n",
+                          starCount, radius, seed, output, (System.nanoTime() - startTime) / 1e6);
+        if (cache) {
+            StarCatalogCache.write(output, stars);
+            System.out.println("Wrote star cache " + StarCatalogCache.cachePathFor(output));
+        }
+        if (tiles != null) {
+            StarTileFile.write(tiles, stars, StarTileFile.DEFAULT_MAX_TILE_STARS);
+            System.out.println("Wrote star tiles " + tiles);
+        }
+    }
+
+    // The value following the option at args[i], exiting with usage if there is none
+    private static String optionValue(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            exitWithUsage("Missing value for " + args[i]);
+        }
+        return args[i + 1];
+    }
+
+    private static void exitWithUsage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: GalaxyGenerator <starCount> <output.csv> [--seed N] [--radius parsecs]"
+                           + " [--cache] [--tiles output.tiles]");
+        System.exit(1);
+    }
+}
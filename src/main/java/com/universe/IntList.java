@@ -0,0 +1,71 @@
+package com.universe;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints.
+ * Used for per-frame query results so they can be reused without boxing or reallocation.
+ */
+public class IntList {
+    private int[] data;
+    private int size;
+
+    public IntList() {
+        this(64);
+    }
+
+    public IntList(int initialCapacity) {
+        data = new int[Math.max(1, initialCapacity)];
+    }
+
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = value;
+    }
+
+    // Appends values[from..to) in one copy
+    public void addAll(int[] values, int from, int to) {
+        int count = to - from;
+        if (count <= 0) return;
+        ensureCapacity(size + count);
+        System.arraycopy(values, from, data, size, count);
+        size += count;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+        }
+    }
+
+    public int get(int index) {
+        return data[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Drops the entries from newSize on, e.g. after compacting array() in place
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException("truncate " + newSize + " of " + size);
+        }
+        size = newSize;
+    }
+
+    // Backing array; only the first size() entries are valid
+    public int[] array() {
+        return data;
+    }
+}
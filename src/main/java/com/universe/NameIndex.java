@@ -0,0 +1,185 @@
+package com.universe;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Open-addressing index from lowercase name keys to star ids.
+ * Keys are either Strings added at parse time or UTF-8 slices of a blob read from the binary
+ * cache, decoded only when a lookup needs to compare them. Key hashes are String.hashCode()
+ * values, so the table can be rebuilt from stored hashes without decoding any key.
+ */
+class NameIndex {
+    private String[] keys;
+    private int[] hashes;
+    private int[] ids;
+    private boolean[] weak; // Added by putIfAbsent and never overwritten; null if there are none
+    private int size;
+
+    // Optional encoded keys (from the cache); keys[i] is decoded from blob on first use
+    private byte[] blob;
+    private int[] keyStart;
+    private int[] keyLength;
+
+    private int[] slots; // Key index + 1, 0 = empty
+
+    NameIndex(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        ids = new int[capacity];
+        slots = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Wraps serialized keys; key i is the UTF-8 slice [keyStart[i], keyStart[i] + keyLength[i]) of blob.
+     */
+    NameIndex(int size, byte[] blob, int[] keyStart, int[] keyLength, int[] hashes, int[] ids) {
+        this.size = size;
+        this.blob = blob;
+        this.keyStart = keyStart;
+        this.keyLength = keyLength;
+        this.hashes = hashes;
+        this.ids = ids;
+        this.keys = new String[size];
+        this.slots = new int[tableSizeFor(size)];
+        for (int i = 0; i < size; i++) {
+            insertSlot(i);
+        }
+    }
+
+    // Lowercase key -> id, NOT_FOUND if absent
+    int get(String key) {
+        int index = find(key, key.hashCode());
+        return index >= 0 ? ids[index] : StarCatalog.NOT_FOUND;
+    }
+
+    void put(String key, int id) {
+        int hash = key.hashCode();
+        int index = find(key, hash);
+        if (index >= 0) {
+            ids[index] = id;
+            if (weak != null) weak[index] = false;
+        } else {
+            append(key, hash, id);
+        }
+    }
+
+    void putIfAbsent(String key, int id) {
+        int hash = key.hashCode();
+        if (find(key, hash) < 0) {
+            append(key, hash, id);
+            if (weak == null) weak = new boolean[keys.length];
+            weak[size - 1] = true;
+        }
+    }
+
+    /**
+     * Adds every key of another index with its id shifted by idOffset, with the same result as
+     * replaying the other index's puts after this index's own.
+     */
+    void putAll(NameIndex other, int idOffset) {
+        for (int i = 0; i < other.size; i++) {
+            if (other.weak != null && other.weak[i]) {
+                putIfAbsent(other.key(i), other.ids[i] + idOffset);
+            } else {
+                put(other.key(i), other.ids[i] + idOffset);
+            }
+        }
+    }
+
+    int size() { return size; }
+    String key(int index) {
+        String key = keys[index];
+        if (key == null) {
+            key = new String(blob, keyStart[index], keyLength[index], StandardCharsets.UTF_8);
+            keys[index] = key;
+        }
+        return key;
+    }
+    int hash(int index) { return hashes[index]; }
+    int id(int index) { return ids[index]; }
+
+    /**
+     * Applies an id remapping (NOT_FOUND drops the key) and rebuilds the table.
+     * Encoded keys stay encoded.
+     */
+    void remap(int[] remap) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int newId = remap[ids[i]];
+            if (newId == StarCatalog.NOT_FOUND) continue;
+            keys[kept] = keys[i];
+            hashes[kept] = hashes[i];
+            ids[kept] = newId;
+            if (weak != null) weak[kept] = weak[i];
+            if (blob != null) {
+                keyStart[kept] = keyStart[i];
+                keyLength[kept] = keyLength[i];
+            }
+            kept++;
+        }
+        Arrays.fill(keys, kept, size, null);
+        size = kept;
+        Arrays.fill(slots, 0);
+        for (int i = 0; i < size; i++) {
+            insertSlot(i);
+        }
+    }
+
+    private int find(String key, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int index = slots[slot] - 1;
+            if (hashes[index] == hash && key(index).equals(key)) return index;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void append(String key, int hash, int id) {
+        if (size == keys.length) {
+            int capacity = Math.max(16, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            if (weak != null) weak = Arrays.copyOf(weak, capacity);
+            if (blob != null) {
+                keyStart = Arrays.copyOf(keyStart, capacity);
+                keyLength = Arrays.copyOf(keyLength, capacity);
+            }
+        }
+        keys[size] = key;
+        hashes[size] = hash;
+        ids[size] = id;
+        size++;
+        if (size * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int i = 0; i < size; i++) {
+                insertSlot(i);
+            }
+        } else {
+            insertSlot(size - 1);
+        }
+    }
+
+    // Keys are unique, so inserting only needs an empty slot
+    private void insertSlot(int index) {
+        int mask = slots.length - 1;
+        int slot = mix(hashes[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private static int tableSizeFor(int entries) {
+        return Integer.highestOneBit(Math.max(8, entries * 2) - 1) << 1;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -4,6 +4,7 @@ import org.joml.*;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
 import org.lwjgl.system.MemoryStack;
 
 import java.io.BufferedReader;
@@ -11,13 +12,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * A linked vertex + fragment shader program.
+ * Active uniforms are reflected once after linking into a name -> location table, so setters
+ * never query the driver by name; {@link #uniform(String)} returns a handle that skips even the
+ * table lookup. Programs that declare the {@link FrameUniforms#BLOCK_NAME} block are bound to the
+ * shared per-frame uniform buffer.
+ */
 public class ShaderProgram {
 
     private final int programId;
     private int vertexShaderId;
     private int fragmentShaderId;
+    private final Map<String, Integer> uniformLocations = new HashMap<>();
 
     public ShaderProgram(String vertexResourcePath, String fragmentResourcePath) throws Exception {
         // Load and compile vertex shader
@@ -55,6 +67,36 @@ public class ShaderProgram {
          if (GL20.glGetProgrami(programId, GL20.GL_VALIDATE_STATUS) == 0) {
              System.err.println("Warning validating Shader code: " + GL20.glGetProgramInfoLog(programId, 1024));
          }
+
+        reflectUniforms();
+        bindUniformBlock(FrameUniforms.BLOCK_NAME, FrameUniforms.BINDING);
+    }
+
+    // Records the location of every active uniform outside of uniform blocks
+    private void reflectUniforms() {
+        int count = GL20.glGetProgrami(programId, GL20.GL_ACTIVE_UNIFORMS);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer size = stack.mallocInt(1);
+            IntBuffer type = stack.mallocInt(1);
+            for (int i = 0; i < count; i++) {
+                String name = GL20.glGetActiveUniform(programId, i, size, type);
+                int location = GL20.glGetUniformLocation(programId, name);
+                if (location == -1) continue; // Block members have no location
+                // Arrays are reported as "name[0]"
+                if (name.endsWith("[0]")) {
+                    name = name.substring(0, name.length() - 3);
+                }
+                uniformLocations.put(name, location);
+            }
+        }
+    }
+
+    // Attaches the named uniform block, if the program declares it, to a buffer binding point
+    private void bindUniformBlock(String blockName, int binding) {
+        int blockIndex = GL31.glGetUniformBlockIndex(programId, blockName);
+        if (blockIndex != GL31.GL_INVALID_INDEX) {
+            GL31.glUniformBlockBinding(programId, blockIndex, binding);
+        }
     }
 
     private String loadResource(String resourcePath) throws IOException {
@@ -110,72 +152,120 @@ public class ShaderProgram {
         GL20.glUseProgram(0);
     }
 
-    // --- Uniform Setters --- 
+    /**
+     * Returns a handle for the named uniform. Handles of uniforms the program doesn't use
+     * (or the compiler optimized out) ignore every set.
+     */
+    public Uniform uniform(String name) {
+        return new Uniform(location(name));
+    }
 
-    public void setInt(String name, int value) {
-        int location = GL20.glGetUniformLocation(programId, name);
-        if (location != -1) {
-            GL20.glUniform1i(location, value);
+    private int location(String name) {
+        Integer location = uniformLocations.get(name);
+        return location != null ? location : -1;
+    }
+
+    /**
+     * Location of one uniform of a program. Like GL's glUniform* calls, the setters act on the
+     * program currently in use.
+     */
+    public static final class Uniform {
+        private final int location;
+
+        private Uniform(int location) {
+            this.location = location;
+        }
+
+        public boolean isActive() {
+            return location != -1;
+        }
+
+        public void set(int value) {
+            if (location != -1) {
+                GL20.glUniform1i(location, value);
+            }
+        }
+
+        public void set(boolean value) {
+            set(value ? 1 : 0);
+        }
+
+        public void set(float value) {
+            if (location != -1) {
+                GL20.glUniform1f(location, value);
+            }
+        }
+
+        public void set(float x, float y) {
+            if (location != -1) {
+                GL20.glUniform2f(location, x, y);
+            }
+        }
+
+        public void set(float x, float y, float z) {
+            if (location != -1) {
+                GL20.glUniform3f(location, x, y, z);
+            }
+        }
+
+        public void set(float x, float y, float z, float w) {
+            if (location != -1) {
+                GL20.glUniform4f(location, x, y, z, w);
+            }
+        }
+
+        public void set(Vector2f value) {
+            set(value.x, value.y);
+        }
+
+        public void set(Vector3f value) {
+            set(value.x, value.y, value.z);
+        }
+
+        public void set(Vector4f value) {
+            set(value.x, value.y, value.z, value.w);
+        }
+
+        public void set(Matrix4f value) {
+            if (location != -1) {
+                try (MemoryStack stack = MemoryStack.stackPush()) {
+                    FloatBuffer buffer = stack.mallocFloat(16);
+                    value.get(buffer);
+                    GL20.glUniformMatrix4fv(location, false, buffer);
+                }
+            }
         }
     }
 
+    // --- Uniform Setters (by name, through the reflected table) ---
+
+    public void setInt(String name, int value) {
+        uniform(name).set(value);
+    }
+
     public void setFloat(String name, float value) {
-        int location = GL20.glGetUniformLocation(programId, name);
-        if (location != -1) {
-            GL20.glUniform1f(location, value);
-        }
+        uniform(name).set(value);
     }
 
     public void setVec2(String name, Vector2f value) {
-        int location = GL20.glGetUniformLocation(programId, name);
-        if (location != -1) {
-            try (MemoryStack stack = MemoryStack.stackPush()) {
-                FloatBuffer buffer = stack.mallocFloat(2);
-                value.get(buffer);
-                GL20.glUniform2fv(location, buffer);
-            }
-        }
+        uniform(name).set(value);
     }
     
     public void setVec3(String name, Vector3f value) {
-        int location = GL20.glGetUniformLocation(programId, name);
-        if (location != -1) {
-             try (MemoryStack stack = MemoryStack.stackPush()) {
-                FloatBuffer buffer = stack.mallocFloat(3);
-                value.get(buffer);
-                GL20.glUniform3fv(location, buffer);
-            }
-        }
+        uniform(name).set(value);
     }
 
     public void setVec4(String name, Vector4f value) {
-        int location = GL20.glGetUniformLocation(programId, name);
-        if (location != -1) {
-             try (MemoryStack stack = MemoryStack.stackPush()) {
-                FloatBuffer buffer = stack.mallocFloat(4);
-                value.get(buffer);
-                GL20.glUniform4fv(location, buffer);
-            }
-        }
+        uniform(name).set(value);
     }
     
     public void setMat4(String name, Matrix4f value) {
-        int location = GL20.glGetUniformLocation(programId, name);
-        if (location != -1) {
-            try (MemoryStack stack = MemoryStack.stackPush()) {
-                FloatBuffer buffer = stack.mallocFloat(16);
-                value.get(buffer);
-                GL20.glUniformMatrix4fv(location, false, buffer);
-            }
-        }
+        uniform(name).set(value);
     }
     
     // Add setters for other types (mat3, double matrices etc.) if needed
     
     public void setBoolean(String name, boolean value) {
-        int location = GL20.glGetUniformLocation(programId, name);
-        if (location != -1) {
-            GL20.glUniform1i(location, value ? 1 : 0);
-        }
+        uniform(name).set(value);
     }
-} 
\ No newline at end of file
+}
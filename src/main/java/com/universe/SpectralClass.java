@@ -0,0 +1,321 @@
+package com.universe;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decoded form of a spectral class string such as "G2V" or "M5.5Ve".
+ * Each distinct string is parsed once by {@link #of(String)} and the interned instance is shared
+ * by every star of that class, so deriving a star's color, radius and mass is a field read
+ * instead of a string parse. Safe to use from the parallel parsers.
+ */
+public final class SpectralClass {
+
+    public static final SpectralClass UNKNOWN;
+
+    private static final Map<String, SpectralClass> INTERNED = new ConcurrentHashMap<>();
+
+    // Enhanced color map with more vibrant, saturated colors for stars
+    private static final Map<Character, Color> SPECTRAL_COLOR_MAP = new HashMap<>();
+    static {
+        // Main sequence stars (O,B,A,F,G,K,M) - More vibrant and saturated
+        SPECTRAL_COLOR_MAP.put('O', new Color(155, 180, 255));  // Intense blue
+        SPECTRAL_COLOR_MAP.put('B', new Color(170, 195, 255));  // Bright blue-white
+        SPECTRAL_COLOR_MAP.put('A', new Color(210, 225, 255));  // White with stronger blue tint
+        SPECTRAL_COLOR_MAP.put('F', new Color(255, 245, 230));  // Creamy white
+        SPECTRAL_COLOR_MAP.put('G', new Color(255, 230, 130));  // Vibrant yellow
+        SPECTRAL_COLOR_MAP.put('K', new Color(255, 190, 100));  // Strong orange
+        SPECTRAL_COLOR_MAP.put('M', new Color(255, 140, 90));   // Rich red-orange
+
+        // Brown dwarfs - Distinct, deeper colors
+        SPECTRAL_COLOR_MAP.put('L', new Color(230, 100, 50));   // Deep red-brown
+        SPECTRAL_COLOR_MAP.put('T', new Color(200, 80, 40));    // Rich magenta-brown
+        SPECTRAL_COLOR_MAP.put('Y', new Color(170, 70, 40));    // Dark, cool brown
+
+        // Other types - Enhanced colors
+        SPECTRAL_COLOR_MAP.put('W', new Color(120, 170, 255));  // Wolf-Rayet (strong blue)
+        SPECTRAL_COLOR_MAP.put('C', new Color(255, 100, 100));  // Carbon stars (vivid red)
+        SPECTRAL_COLOR_MAP.put('S', new Color(255, 120, 90));   // S-type stars (vibrant orange-red)
+        SPECTRAL_COLOR_MAP.put('D', new Color(200, 210, 255));  // White dwarfs (pale blue-white)
+        SPECTRAL_COLOR_MAP.put('Q', new Color(170, 180, 200));  // Neutron stars (cool blue-gray)
+        SPECTRAL_COLOR_MAP.put('X', new Color(30, 30, 40));     // Black holes (very dark near-black)
+        SPECTRAL_COLOR_MAP.put('P', new Color(180, 190, 255));  // Planetary nebulae (maintained)
+        SPECTRAL_COLOR_MAP.put('N', new Color(240, 170, 130));  // Carbon stars (N - maintained)
+        SPECTRAL_COLOR_MAP.put('R', new Color(255, 110, 90));   // Carbon stars (R - maintained)
+    }
+
+    // Rough estimates for main sequence (V) radius in Solar Radii
+    private static final Map<Character, Double> SPECTRAL_RADIUS_MAP_V = new HashMap<>();
+    static {
+        SPECTRAL_RADIUS_MAP_V.put('O', 15.0);  // 7-20+ solar radii (highly variable)
+        SPECTRAL_RADIUS_MAP_V.put('B', 7.0);   // 3.5-10 solar radii
+        SPECTRAL_RADIUS_MAP_V.put('A', 1.8);   // 1.5-2.5 solar radii
+        SPECTRAL_RADIUS_MAP_V.put('F', 1.3);   // 1.1-1.5 solar radii
+        SPECTRAL_RADIUS_MAP_V.put('G', 1.0);   // Like Sun (0.9-1.1 solar radii)
+        SPECTRAL_RADIUS_MAP_V.put('K', 0.8);   // 0.7-0.9 solar radii
+        SPECTRAL_RADIUS_MAP_V.put('M', 0.5);   // 0.1-0.7 solar radii
+
+        // Brown dwarfs and smaller objects
+        SPECTRAL_RADIUS_MAP_V.put('L', 0.1);   // ~Jupiter sized
+        SPECTRAL_RADIUS_MAP_V.put('T', 0.08);  // Smaller than Jupiter
+        SPECTRAL_RADIUS_MAP_V.put('Y', 0.07);  // Smallest brown dwarfs
+
+        // Other types
+        SPECTRAL_RADIUS_MAP_V.put('W', 12.0);  // Wolf-Rayet stars (variable)
+        SPECTRAL_RADIUS_MAP_V.put('C', 100.0); // Carbon stars (often giants)
+        SPECTRAL_RADIUS_MAP_V.put('S', 80.0);  // S-type stars (often giants)
+        SPECTRAL_RADIUS_MAP_V.put('D', 0.01);  // White dwarfs (Earth-sized)
+        SPECTRAL_RADIUS_MAP_V.put('Q', 0.0001); // Neutron stars (city-sized)
+        SPECTRAL_RADIUS_MAP_V.put('X', 0.0001); // Black holes (event horizon)
+        SPECTRAL_RADIUS_MAP_V.put('N', 90.0);  // Carbon stars (old notation)
+        SPECTRAL_RADIUS_MAP_V.put('R', 70.0);  // Carbon stars (old notation)
+    }
+
+    // Rough estimates for main sequence (V) mass in Solar Masses
+    private static final Map<Character, Double> SPECTRAL_MASS_MAP_V = new HashMap<>();
+    static {
+        SPECTRAL_MASS_MAP_V.put('O', 40.0);  // 20-100+ solar masses
+        SPECTRAL_MASS_MAP_V.put('B', 10.0);  // 3-20 solar masses
+        SPECTRAL_MASS_MAP_V.put('A', 2.5);   // 1.5-3 solar masses
+        SPECTRAL_MASS_MAP_V.put('F', 1.5);   // 1.1-1.8 solar masses
+        SPECTRAL_MASS_MAP_V.put('G', 1.0);   // 0.8-1.2 solar masses
+        SPECTRAL_MASS_MAP_V.put('K', 0.7);   // 0.5-0.8 solar masses
+        SPECTRAL_MASS_MAP_V.put('M', 0.3);   // 0.1-0.5 solar masses
+
+        // Brown dwarfs and smaller
+        SPECTRAL_MASS_MAP_V.put('L', 0.08);  // 0.06-0.09 solar masses
+        SPECTRAL_MASS_MAP_V.put('T', 0.05);  // 0.03-0.06 solar masses
+        SPECTRAL_MASS_MAP_V.put('Y', 0.02);  // <0.03 solar masses
+
+        // Other types
+        SPECTRAL_MASS_MAP_V.put('W', 25.0);  // Wolf-Rayet stars (variable)
+        SPECTRAL_MASS_MAP_V.put('C', 3.0);   // Carbon stars (variable)
+        SPECTRAL_MASS_MAP_V.put('S', 2.5);   // S-type stars (variable)
+        SPECTRAL_MASS_MAP_V.put('D', 0.7);   // White dwarfs
+        SPECTRAL_MASS_MAP_V.put('Q', 1.4);   // Neutron stars
+        SPECTRAL_MASS_MAP_V.put('X', 10.0);  // Black holes (variable)
+        SPECTRAL_MASS_MAP_V.put('N', 2.8);   // Carbon stars (old notation)
+        SPECTRAL_MASS_MAP_V.put('R', 2.5);   // Carbon stars (old notation)
+    }
+
+    static {
+        // Declared after the tables it is decoded from
+        UNKNOWN = of("");
+    }
+
+    private final String text;
+    private final char type;              // Uppercase first letter, 0 if the class is empty
+    private final int subtype;            // Digit after the type, -1 if none
+    private final String luminosityClass; // "I".."VII", or "" if the class is empty
+    private final Color color;
+    private final float red, green, blue; // 0..1
+    private final double radiusSolar;     // Before the main-sequence mass refinement
+    private final double massSolar;
+
+    private SpectralClass(String text) {
+        this.text = text;
+        this.type = text.isEmpty() ? 0 : Character.toUpperCase(text.charAt(0));
+        this.subtype = text.length() > 1 && Character.isDigit(text.charAt(1))
+                ? Character.getNumericValue(text.charAt(1)) : -1;
+        this.luminosityClass = decodeLuminosityClass(text);
+        this.color = text.isEmpty()
+                ? SPECTRAL_COLOR_MAP.getOrDefault('G', Color.YELLOW) // Default G type
+                : SPECTRAL_COLOR_MAP.getOrDefault(type, Color.WHITE);
+        this.red = color.getRed() / 255.0f;
+        this.green = color.getGreen() / 255.0f;
+        this.blue = color.getBlue() / 255.0f;
+        this.radiusSolar = estimateRadiusSolar();
+        this.massSolar = estimateMassSolar();
+    }
+
+    /**
+     * Returns the shared decoding of a spectral class string (leading and trailing
+     * whitespace ignored). A null or empty class decodes as a Sun-like default.
+     */
+    public static SpectralClass of(String spectralClass) {
+        String text = spectralClass != null ? spectralClass.trim() : "";
+        SpectralClass decoded = INTERNED.get(text);
+        return decoded != null ? decoded : INTERNED.computeIfAbsent(text, SpectralClass::new);
+    }
+
+    // Estimate mass based on spectral class
+    private double estimateMassSolar() {
+        // Default to G-type (Sun-like) mass if class is unknown
+        if (text.isEmpty()) {
+            return 1.0;
+        }
+
+        // Get base mass from map
+        double mass = SPECTRAL_MASS_MAP_V.getOrDefault(type, 1.0);
+
+        // Adjust based on subtype if present
+        if (subtype >= 0) {
+            switch (type) {
+                case 'O':
+                    mass = 40.0 - subtype * 3.0; // O0=40, O9=13
+                    break;
+                case 'B':
+                    mass = 18.0 - subtype * 1.5; // B0=18, B9=4.5
+                    break;
+                case 'A':
+                    mass = 3.2 - subtype * 0.18; // A0=3.2, A9=1.5
+                    break;
+                case 'F':
+                    mass = 1.7 - subtype * 0.07; // F0=1.7, F9=1.0
+                    break;
+                case 'G':
+                    mass = 1.1 - subtype * 0.04; // G0=1.1, G9=0.75
+                    break;
+                case 'K':
+                    mass = 0.8 - subtype * 0.04; // K0=0.8, K9=0.45
+                    break;
+                case 'M':
+                    mass = 0.5 - subtype * 0.04; // M0=0.5, M9=0.08
+                    break;
+                // Others use the default mass from the map
+            }
+        }
+
+        // Adjust based on luminosity class if present
+        switch (luminosityClass) {
+            case "I":   // Supergiants
+                mass *= 15.0;
+                break;
+            case "II":  // Bright giants
+                mass *= 9.0;
+                break;
+            case "III": // Giants
+                mass *= 5.0;
+                break;
+            case "IV":  // Subgiants
+                mass *= 2.0;
+                break;
+            // V (Main Sequence) uses default
+        }
+        return mass;
+    }
+
+    // Radius estimation from spectral class, capped; main-sequence stars are refined by mass in Star
+    private double estimateRadiusSolar() {
+        // Basic radius estimation from spectral class
+        double radius = SPECTRAL_RADIUS_MAP_V.getOrDefault(text.isEmpty() ? 'G' : type, 1.0);
+
+        // Refine based on subtype if present
+        if (subtype >= 0) {
+            switch (type) {
+                case 'O':
+                    radius = 20.0 - subtype * 1.0; // O0=20, O9=11
+                    break;
+                case 'B':
+                    radius = 10.0 - subtype * 0.6; // B0=10, B9=4.6
+                    break;
+                case 'A':
+                    radius = 2.5 - subtype * 0.08; // A0=2.5, A9=1.8
+                    break;
+                case 'F':
+                    radius = 1.6 - subtype * 0.05; // F0=1.6, F9=1.15
+                    break;
+                case 'G':
+                    radius = 1.1 - subtype * 0.03; // G0=1.1, G9=0.85
+                    break;
+                case 'K':
+                    radius = 0.85 - subtype * 0.04; // K0=0.85, K9=0.5
+                    break;
+                case 'M':
+                    radius = 0.5 - subtype * 0.03; // M0=0.5, M9=0.1
+                    break;
+                // Others use the default radius from the map
+            }
+        }
+
+        // Adjust for luminosity class
+        switch (luminosityClass) {
+            case "I":   // Supergiants - reduce scale to avoid ridiculously large stars
+                radius *= 20.0; // Was 100.0, reduced to be visually manageable
+                break;
+            case "II":  // Bright giants
+                radius *= 10.0; // Was 50.0
+                break;
+            case "III": // Giants
+                radius *= 6.0;  // Was 15.0
+                break;
+            case "IV":  // Subgiants
+                radius *= 2.0;  // Was 3.0
+                break;
+            // V (Main Sequence) uses default
+        }
+
+        // Cap the maximum radius to avoid absurdly large stars
+        // 25 solar radii is still visually impressive but not overwhelming
+        double maxRadiusSolar = 25.0;
+        return Math.min(radius, maxRadiusSolar);
+    }
+
+    // Extract luminosity class from spectral class string
+    private static String decodeLuminosityClass(String spectralClass) {
+        if (spectralClass.isEmpty()) {
+            return "";
+        }
+
+        // Look for Roman numerals at the end and handle special cases
+        // Case insensitive check for better matching
+        String upperClass = spectralClass.toUpperCase();
+
+        // Check for specific luminosity class indicators
+        if (upperClass.contains(" I")) {
+            if (upperClass.contains(" III")) return "III";
+            else if (upperClass.contains(" II")) return "II";
+            else return "I";
+        } else if (upperClass.contains(" IV")) {
+            return "IV";
+        } else if (upperClass.contains(" V")) {
+            return "V";
+        } else if (upperClass.contains(" VI")) {
+            return "VI"; // Subdwarfs
+        } else if (upperClass.contains(" VII")) {
+            return "VII"; // White dwarfs in some classification systems
+        }
+
+        // Try to match at the end of the string if not found with space prefix
+        if (upperClass.endsWith("III")) return "III";
+        else if (upperClass.endsWith("II")) return "II";
+        else if (upperClass.endsWith("IV")) return "IV";
+        else if (upperClass.endsWith("VI")) return "VI";
+        else if (upperClass.endsWith("VII")) return "VII";
+        else if (upperClass.endsWith("I")) return "I";
+        else if (upperClass.endsWith("V")) return "V";
+
+        // If no roman numeral found, we need smarter detection
+        // Check for dwarf/giant indicators in text
+        if (upperClass.contains("DWARF") || upperClass.contains("D")) {
+            return "V"; // Main sequence
+        } else if (upperClass.contains("GIANT") || upperClass.contains("G")) {
+            return "III"; // Giant
+        } else if (upperClass.contains("SUPERGIANT") || upperClass.contains("SG")) {
+            return "I"; // Supergiant
+        }
+
+        // If no clear indicator, assume main sequence for most stars
+        return "V";
+    }
+
+    // Getters
+    public String getText() { return text; }
+    public char getType() { return type; }
+    public int getSubtype() { return subtype; }
+    public String getLuminosityClass() { return luminosityClass; }
+    public boolean isMainSequence() { return luminosityClass.equals("V"); }
+    public Color getColor() { return color; }
+    public float getRed() { return red; }
+    public float getGreen() { return green; }
+    public float getBlue() { return blue; }
+    public double getRadiusSolar() { return radiusSolar; }
+    public double getMassSolar() { return massSolar; }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -1,8 +1,11 @@
 package com.universe;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Unit UV spheres, optionally as a chain of detail levels packed into one vertex and index array.
+ * Level i occupies indices [levelIndexOffset[i], levelIndexOffset[i] + levelIndexCount[i]); its
+ * indices already point at its own vertices, so a level is drawn by offsetting into the shared
+ * index buffer. Levels are ordered from coarsest to finest.
+ */
 public class SphereMesh {
     public final float[] positions;
     public final float[] normals;
@@ -10,11 +13,52 @@ public class SphereMesh {
     public final int vertexCount;
     public final int indexCount;
 
+    public final int levelCount;
+    public final int[] levelBands;       // Latitude bands per level
+    public final int[] levelIndexOffset; // In indices, not bytes
+    public final int[] levelIndexCount;
+
     public SphereMesh(int latitudeBands, int longitudeBands) {
-        List<Float> posList = new ArrayList<>();
-        List<Float> normList = new ArrayList<>();
-        List<Integer> idxList = new ArrayList<>();
+        this(new int[] {latitudeBands}, new int[] {longitudeBands});
+    }
 
+    /**
+     * Builds one level per band count, each with as many longitude as latitude bands.
+     * Band counts must be ascending.
+     */
+    public static SphereMesh withLevels(int... bands) {
+        return new SphereMesh(bands, bands);
+    }
+
+    private SphereMesh(int[] latitudeBands, int[] longitudeBands) {
+        levelCount = latitudeBands.length;
+        levelBands = latitudeBands.clone();
+        levelIndexOffset = new int[levelCount];
+        levelIndexCount = new int[levelCount];
+
+        int totalVertices = 0, totalIndices = 0;
+        for (int level = 0; level < levelCount; level++) {
+            totalVertices += (latitudeBands[level] + 1) * (longitudeBands[level] + 1);
+            totalIndices += latitudeBands[level] * longitudeBands[level] * 6;
+        }
+        positions = new float[totalVertices * 3];
+        normals = new float[totalVertices * 3];
+        indices = new int[totalIndices];
+
+        int vertex = 0, index = 0;
+        for (int level = 0; level < levelCount; level++) {
+            int baseVertex = vertex;
+            levelIndexOffset[level] = index;
+            vertex = addVertices(latitudeBands[level], longitudeBands[level], vertex);
+            index = addIndices(latitudeBands[level], longitudeBands[level], baseVertex, index);
+            levelIndexCount[level] = index - levelIndexOffset[level];
+        }
+        vertexCount = totalVertices;
+        indexCount = totalIndices;
+    }
+
+    // Writes one sphere's vertices starting at vertex; returns the next free vertex
+    private int addVertices(int latitudeBands, int longitudeBands, int vertex) {
         for (int lat = 0; lat <= latitudeBands; lat++) {
             double theta = lat * Math.PI / latitudeBands;
             double sinTheta = Math.sin(theta);
@@ -29,38 +73,35 @@ public class SphereMesh {
                 float y = (float) cosTheta;
                 float z = (float) (sinPhi * sinTheta);
 
-                posList.add(x);
-                posList.add(y);
-                posList.add(z);
+                positions[vertex * 3] = x;
+                positions[vertex * 3 + 1] = y;
+                positions[vertex * 3 + 2] = z;
 
-                normList.add(x);
-                normList.add(y);
-                normList.add(z);
+                normals[vertex * 3] = x;
+                normals[vertex * 3 + 1] = y;
+                normals[vertex * 3 + 2] = z;
+                vertex++;
             }
         }
+        return vertex;
+    }
 
+    // Writes one sphere's triangles starting at index; returns the next free index
+    private int addIndices(int latitudeBands, int longitudeBands, int baseVertex, int index) {
         for (int lat = 0; lat < latitudeBands; lat++) {
             for (int lon = 0; lon < longitudeBands; lon++) {
-                int first = (lat * (longitudeBands + 1)) + lon;
+                int first = baseVertex + (lat * (longitudeBands + 1)) + lon;
                 int second = first + longitudeBands + 1;
 
-                idxList.add(first);
-                idxList.add(second);
-                idxList.add(first + 1);
+                indices[index++] = first;
+                indices[index++] = second;
+                indices[index++] = first + 1;
 
-                idxList.add(second);
-                idxList.add(second + 1);
-                idxList.add(first + 1);
+                indices[index++] = second;
+                indices[index++] = second + 1;
+                indices[index++] = first + 1;
             }
         }
-
-        positions = new float[posList.size()];
-        normals = new float[normList.size()];
-        indices = new int[idxList.size()];
-        for (int i = 0; i < posList.size(); i++) positions[i] = posList.get(i);
-        for (int i = 0; i < normList.size(); i++) normals[i] = normList.get(i);
-        for (int i = 0; i < idxList.size(); i++) indices[i] = idxList.get(i);
-        vertexCount = positions.length / 3;
-        indexCount = indices.length;
+        return index;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,350 @@
+package com.universe;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Columnar registry of unique stars.
+ * Every star is stored once and identified by its dense index (star id). Per-star data lives
+ * in parallel primitive arrays so hot loops (culling, sorting, overlap checks) scan plain
+ * arrays instead of chasing Star objects. {@link Star} instances are only created as views
+ * via {@link #get(int)}, e.g. for the sidebar.
+ * Names and Hipparcos IDs are secondary indices that map to star ids.
+ */
+public class StarCatalog {
+    public static final int NOT_FOUND = -1;
+
+    // Flag bits
+    public static final byte FLAG_HABITABLE = 1;
+    public static final byte FLAG_EQUATORIAL = 2; // Position came from RA/Dec (old format), no galactic coordinates
+
+    private static final double PARSEC_TO_LY = 3.26156;
+
+    private int size;
+    private int capacity;
+
+    // Hot columns
+    private double[] x, y, z;    // Position in light-years from Sol
+    private float[] radiusKm;
+    private float[] rgb;         // 3 floats per star, 0..1
+    private float[] absMag;
+    private int[] hipId;         // 0 if none
+    private byte[] flags;
+
+    // Cold columns (only needed to build views)
+    private String[] name;       // Decoded lazily from nameBlob when loaded from the cache
+    private byte[] nameBlob;     // UTF-8 names, null if every name is already a String
+    private int[] nameStart, nameLength;
+    private SpectralClass[] spectral; // Interned, so stars of one class share the decoding
+    private float[] distancePc;
+    private float[] massSolar;
+
+    // Secondary indices
+    private final NameIndex nameIndex;                               // Lowercase name -> star id
+    private final IntIntHashMap hipIndex = new IntIntHashMap(1024);  // Hipparcos ID -> star id
+
+    public StarCatalog() {
+        this(1024);
+    }
+
+    public StarCatalog(int initialCapacity) {
+        capacity = Math.max(16, initialCapacity);
+        x = new double[capacity];
+        y = new double[capacity];
+        z = new double[capacity];
+        radiusKm = new float[capacity];
+        rgb = new float[capacity * 3];
+        absMag = new float[capacity];
+        hipId = new int[capacity];
+        flags = new byte[capacity];
+        name = new String[capacity];
+        spectral = new SpectralClass[capacity];
+        distancePc = new float[capacity];
+        massSolar = new float[capacity];
+        nameIndex = new NameIndex(capacity);
+    }
+
+    /**
+     * Wraps fully populated columns (e.g. read from the binary cache). The arrays are used as-is
+     * and only the Hipparcos index is rebuilt. Star names stay UTF-8 encoded in nameBlob until
+     * {@link #getName(int)} first asks for them.
+     */
+    StarCatalog(int size, double[] x, double[] y, double[] z, float[] radiusKm, float[] rgb, float[] absMag,
+                int[] hipId, byte[] flags, byte[] nameBlob, int[] nameStart, int[] nameLength,
+                SpectralClass[] spectral, float[] distancePc, float[] massSolar, NameIndex nameIndex) {
+        this.size = size;
+        this.capacity = size;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.radiusKm = radiusKm;
+        this.rgb = rgb;
+        this.absMag = absMag;
+        this.hipId = hipId;
+        this.flags = flags;
+        this.name = new String[size];
+        this.nameBlob = nameBlob;
+        this.nameStart = nameStart;
+        this.nameLength = nameLength;
+        this.spectral = spectral;
+        this.distancePc = distancePc;
+        this.massSolar = massSolar;
+        this.nameIndex = nameIndex;
+        for (int id = 0; id < size; id++) {
+            if (hipId[id] > 0) {
+                hipIndex.put(hipId[id], id);
+            }
+        }
+    }
+
+    /**
+     * Copies a parsed star into the columns and indexes its Hipparcos ID (if any).
+     * Returns the new star id. Name keys are registered separately with
+     * {@link #putName} / {@link #putNameIfAbsent}.
+     */
+    public int add(Star star) {
+        if (size == capacity) {
+            grow(capacity * 2);
+        }
+        int id = size++;
+        x[id] = star.getX();
+        y[id] = star.getY();
+        z[id] = star.getZ();
+        radiusKm[id] = (float) star.getRadiusKm();
+        SpectralClass sc = star.getSpectral();
+        rgb[id * 3] = sc.getRed();
+        rgb[id * 3 + 1] = sc.getGreen();
+        rgb[id * 3 + 2] = sc.getBlue();
+        absMag[id] = (float) star.getAbsoluteMagnitude();
+        hipId[id] = star.getHipId();
+        byte f = 0;
+        if (star.isHabitable()) f |= FLAG_HABITABLE;
+        if (star.getXGalactic() == 0 && star.getYGalactic() == 0 && star.getZGalactic() == 0
+                && (star.getX() != 0 || star.getY() != 0 || star.getZ() != 0)) {
+            f |= FLAG_EQUATORIAL;
+        }
+        flags[id] = f;
+        name[id] = star.getName();
+        spectral[id] = sc;
+        distancePc[id] = (float) star.getDistanceParsecs();
+        massSolar[id] = (float) (star.getMassKg() / Units.SOLAR_MASS_TO_KG);
+
+        if (hipId[id] > 0) {
+            hipIndex.put(hipId[id], id);
+        }
+        return id;
+    }
+
+    /**
+     * Appends every star of another catalog, in order, together with its name keys.
+     * Ids of the appended stars are shifted by the current size; the result is the same as
+     * if the other catalog's stars had been added to this one directly.
+     */
+    public void addAll(StarCatalog other) {
+        int offset = size;
+        int count = other.size;
+        if (offset + count > capacity) {
+            grow(Math.max(capacity * 2, offset + count));
+        }
+        System.arraycopy(other.x, 0, x, offset, count);
+        System.arraycopy(other.y, 0, y, offset, count);
+        System.arraycopy(other.z, 0, z, offset, count);
+        System.arraycopy(other.radiusKm, 0, radiusKm, offset, count);
+        System.arraycopy(other.rgb, 0, rgb, offset * 3, count * 3);
+        System.arraycopy(other.absMag, 0, absMag, offset, count);
+        System.arraycopy(other.hipId, 0, hipId, offset, count);
+        System.arraycopy(other.flags, 0, flags, offset, count);
+        System.arraycopy(other.spectral, 0, spectral, offset, count);
+        System.arraycopy(other.distancePc, 0, distancePc, offset, count);
+        System.arraycopy(other.massSolar, 0, massSolar, offset, count);
+        for (int i = 0; i < count; i++) {
+            name[offset + i] = other.getName(i);
+        }
+        size += count;
+
+        for (int id = offset; id < size; id++) {
+            if (hipId[id] > 0) {
+                hipIndex.put(hipId[id], id);
+            }
+        }
+        nameIndex.putAll(other.nameIndex, offset);
+    }
+
+    /**
+     * Returns a copy with the stars rearranged so that new id i holds old star order[i].
+     * Name keys and Hipparcos IDs point at the new ids.
+     */
+    StarCatalog reordered(int[] order) {
+        StarCatalog copy = new StarCatalog(size);
+        for (int newId = 0; newId < size; newId++) {
+            int id = order[newId];
+            copy.x[newId] = x[id];
+            copy.y[newId] = y[id];
+            copy.z[newId] = z[id];
+            copy.radiusKm[newId] = radiusKm[id];
+            System.arraycopy(rgb, id * 3, copy.rgb, newId * 3, 3);
+            copy.absMag[newId] = absMag[id];
+            copy.hipId[newId] = hipId[id];
+            copy.flags[newId] = flags[id];
+            copy.name[newId] = getName(id);
+            copy.spectral[newId] = spectral[id];
+            copy.distancePc[newId] = distancePc[id];
+            copy.massSolar[newId] = massSolar[id];
+            if (hipId[id] > 0) {
+                copy.hipIndex.put(hipId[id], newId);
+            }
+        }
+        copy.size = size;
+
+        int[] remap = new int[size];
+        for (int newId = 0; newId < size; newId++) {
+            remap[order[newId]] = newId;
+        }
+        copy.nameIndex.putAll(nameIndex, 0);
+        copy.nameIndex.remap(remap);
+        return copy;
+    }
+
+    private void grow(int newCapacity) {
+        capacity = newCapacity;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        radiusKm = Arrays.copyOf(radiusKm, capacity);
+        rgb = Arrays.copyOf(rgb, capacity * 3);
+        absMag = Arrays.copyOf(absMag, capacity);
+        hipId = Arrays.copyOf(hipId, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        name = Arrays.copyOf(name, capacity);
+        spectral = Arrays.copyOf(spectral, capacity);
+        distancePc = Arrays.copyOf(distancePc, capacity);
+        massSolar = Arrays.copyOf(massSolar, capacity);
+        if (nameBlob != null) {
+            nameStart = Arrays.copyOf(nameStart, capacity);
+            nameLength = Arrays.copyOf(nameLength, capacity);
+        }
+    }
+
+    public void putName(String key, int id) {
+        nameIndex.put(key.toLowerCase(), id);
+    }
+
+    public void putNameIfAbsent(String key, int id) {
+        nameIndex.putIfAbsent(key.toLowerCase(), id);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // --- Column access. Arrays are the live backing storage; only the first size() entries are valid. ---
+
+    public double[] xs() { return x; }
+    public double[] ys() { return y; }
+    public double[] zs() { return z; }
+    public float[] radiiKm() { return radiusKm; }
+    public float[] colors() { return rgb; }
+    public float[] absoluteMagnitudes() { return absMag; }
+    public int[] hipIds() { return hipId; }
+    public byte[] flags() { return flags; }
+
+    public String getName(int id) {
+        String n = name[id];
+        if (n == null && nameBlob != null) {
+            n = new String(nameBlob, nameStart[id], nameLength[id], StandardCharsets.UTF_8);
+            name[id] = n;
+        }
+        return n;
+    }
+    public boolean hasFlag(int id, byte flag) { return (flags[id] & flag) != 0; }
+
+    // Cold columns and name keys, for serialization
+    SpectralClass getSpectralClass(int id) { return spectral[id]; }
+    float[] distancesPc() { return distancePc; }
+    float[] massesSolar() { return massSolar; }
+    NameIndex nameIndex() { return nameIndex; }
+
+    /**
+     * Creates a Star view of the given star id. Views are not cached; callers that need
+     * the same star every frame should keep the instance.
+     */
+    public Star get(int id) {
+        double xg = 0, yg = 0, zg = 0;
+        if (!hasFlag(id, FLAG_EQUATORIAL)) {
+            xg = x[id] / PARSEC_TO_LY;
+            yg = y[id] / PARSEC_TO_LY;
+            zg = z[id] / PARSEC_TO_LY;
+        }
+        return new Star(hipId[id], hasFlag(id, FLAG_HABITABLE), getName(id), spectral[id],
+                        distancePc[id], x[id], y[id], z[id], xg, yg, zg,
+                        absMag[id], massSolar[id] * Units.SOLAR_MASS_TO_KG, radiusKm[id]);
+    }
+
+    public int idOfName(String key) {
+        return nameIndex.get(key.toLowerCase());
+    }
+
+    public int idOfHip(int hip) {
+        return hipIndex.get(hip, NOT_FOUND);
+    }
+
+    // Case-insensitive exact name lookup, null if unknown
+    public Star findByName(String key) {
+        int id = idOfName(key);
+        return id != NOT_FOUND ? get(id) : null;
+    }
+
+    public Star findByHip(int hip) {
+        int id = idOfHip(hip);
+        return id != NOT_FOUND ? get(id) : null;
+    }
+
+    /**
+     * Removes the flagged stars, compacting every column and rebuilding the indices.
+     * Star ids are reassigned, so ids obtained before this call are invalid afterwards.
+     */
+    public int removeAll(boolean[] remove) {
+        int[] remap = new int[size];
+        int kept = 0;
+        for (int id = 0; id < size; id++) {
+            if (remove[id]) {
+                remap[id] = NOT_FOUND;
+                continue;
+            }
+            remap[id] = kept;
+            if (kept != id) {
+                x[kept] = x[id];
+                y[kept] = y[id];
+                z[kept] = z[id];
+                radiusKm[kept] = radiusKm[id];
+                System.arraycopy(rgb, id * 3, rgb, kept * 3, 3);
+                absMag[kept] = absMag[id];
+                hipId[kept] = hipId[id];
+                flags[kept] = flags[id];
+                name[kept] = name[id];
+                if (nameBlob != null) {
+                    nameStart[kept] = nameStart[id];
+                    nameLength[kept] = nameLength[id];
+                }
+                spectral[kept] = spectral[id];
+                distancePc[kept] = distancePc[id];
+                massSolar[kept] = massSolar[id];
+            }
+            kept++;
+        }
+        int removed = size - kept;
+        Arrays.fill(name, kept, size, null);
+        Arrays.fill(spectral, kept, size, null);
+        size = kept;
+
+        // Rebuild the secondary indices against the new ids
+        nameIndex.remap(remap);
+        hipIndex.clear();
+        for (int id = 0; id < size; id++) {
+            if (hipId[id] > 0) {
+                hipIndex.put(hipId[id], id);
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,449 @@
+package com.universe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary cache of a parsed star catalog, stored next to the source CSV as "&lt;file&gt;.starcache".
+ *
+ * Stars are stored nearest to Sol first so a prefix of the file is a usable catalog on its own.
+ * Layout (little-endian): a fixed header, then the primitive columns back to back (each section
+ * padded to 8 bytes), then the distinct spectral classes with a per-star index into them, then
+ * star names and name-index keys as offset tables over UTF-8 blobs. Key hashes are stored too,
+ * so neither names nor keys have to be decoded to load the catalog.
+ * The header records the source file's size, modification time and a hash of its first and last
+ * megabyte; any mismatch makes the cache stale and it is rebuilt from the CSV.
+ * Loading maps the file read-only and bulk-copies each column straight into its array.
+ */
+public class StarCatalogCache {
+
+    private static final int MAGIC = 0x52415453; // "STAR" in little-endian
+    private static final int VERSION = 3;
+    private static final String SUFFIX = ".starcache";
+    private static final int HEADER_BYTES = 48;
+    private static final int HASH_SAMPLE_BYTES = 1 << 20;
+
+    // Header flag bits
+    private static final long FLAG_SORTED_BY_DISTANCE = 1;
+
+    public static Path cachePathFor(Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Maps the cache for the given source file without reading any stars yet.
+     * Returns null if there is no cache or it doesn't match the current source.
+     */
+    public static Mapping open(Path source) throws IOException {
+        Path cache = cachePathFor(source);
+        if (!Files.isRegularFile(cache)) return null;
+
+        long sourceSize = Files.size(source);
+        long sourceMtime = Files.getLastModifiedTime(source).toMillis();
+
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) return null;
+            // Check the header before mapping: a stale mapping can't be released before GC, and
+            // while it exists Windows refuses to replace the file with a rebuilt cache
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+            long cachedSize = header.getLong();
+            long cachedMtime = header.getLong();
+            long cachedHash = header.getLong();
+            if (cachedSize != sourceSize || cachedMtime != sourceMtime) return null;
+            if (cachedHash != sourceHash(source, sourceSize)) return null;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(header.position());
+            return new Mapping(buffer);
+        } catch (RuntimeException e) {
+            // Truncated or corrupt cache: treat as a miss so the CSV is parsed again
+            System.err.println("Warning: Ignoring unreadable star cache " + cache + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * A validated, memory-mapped cache file. Stars are stored nearest to Sol first, so reading
+     * a prefix of the columns yields the nearest stars; {@link #read(int)} can be called with
+     * growing counts to load the catalog progressively.
+     */
+    public static class Mapping {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int nameKeyCount;
+        private final boolean sortedByDistance;
+
+        // Section offsets, each points at element 0 of its column
+        private final int xOffset, yOffset, zOffset, radiusOffset, rgbOffset, absMagOffset;
+        private final int distanceOffset, massOffset, hipOffset, flagsOffset, spectralIndexOffset;
+        private final int nameBlobOffset, keyBlobOffset;
+
+        // Small tables read up front
+        private final SpectralClass[] spectralTable; // Decoded once per distinct class
+        private final int[] nameOffsets;
+        private final int[] keyOffsets, keyHashes, keyIds;
+
+        // Expects the buffer positioned right after the source checks of the header
+        private Mapping(ByteBuffer buffer) {
+            this.buffer = buffer;
+            count = buffer.getInt();
+            nameKeyCount = buffer.getInt();
+            sortedByDistance = (buffer.getLong() & FLAG_SORTED_BY_DISTANCE) != 0;
+
+            xOffset = buffer.position();
+            yOffset = xOffset + (int) padded(count * 8L);
+            zOffset = yOffset + (int) padded(count * 8L);
+            radiusOffset = zOffset + (int) padded(count * 8L);
+            rgbOffset = radiusOffset + (int) padded(count * 4L);
+            absMagOffset = rgbOffset + (int) padded(count * 12L);
+            distanceOffset = absMagOffset + (int) padded(count * 4L);
+            massOffset = distanceOffset + (int) padded(count * 4L);
+            hipOffset = massOffset + (int) padded(count * 4L);
+            flagsOffset = hipOffset + (int) padded(count * 4L);
+            buffer.position(flagsOffset + (int) padded(count));
+
+            int spectralCount = buffer.getInt();
+            spectralTable = new SpectralClass[spectralCount];
+            for (int i = 0; i < spectralCount; i++) {
+                spectralTable[i] = SpectralClass.of(readString(buffer));
+            }
+            align(buffer);
+            spectralIndexOffset = buffer.position();
+            skip(buffer, count * 4L);
+
+            nameOffsets = readInts(buffer, count + 1);
+            nameBlobOffset = buffer.position();
+            skip(buffer, nameOffsets[count]);
+
+            keyOffsets = readInts(buffer, nameKeyCount + 1);
+            keyHashes = readInts(buffer, nameKeyCount);
+            keyIds = readInts(buffer, nameKeyCount);
+            keyBlobOffset = buffer.position();
+            if (keyBlobOffset + keyOffsets[nameKeyCount] > buffer.limit()) {
+                throw new IndexOutOfBoundsException("Star cache is truncated");
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public boolean isSortedByDistance() {
+            return sortedByDistance;
+        }
+
+        /**
+         * Reads the first n stars (the n nearest when sorted by distance) into a new catalog.
+         * Only name keys that point at those stars are included.
+         */
+        public StarCatalog read(int n) {
+            n = Math.min(n, count);
+            ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            double[] x = new double[n];
+            double[] y = new double[n];
+            double[] z = new double[n];
+            b.position(xOffset);
+            b.asDoubleBuffer().get(x);
+            b.position(yOffset);
+            b.asDoubleBuffer().get(y);
+            b.position(zOffset);
+            b.asDoubleBuffer().get(z);
+
+            float[] radiusKm = readFloatsAt(b, radiusOffset, n);
+            float[] rgb = readFloatsAt(b, rgbOffset, n * 3);
+            float[] absMag = readFloatsAt(b, absMagOffset, n);
+            float[] distancePc = readFloatsAt(b, distanceOffset, n);
+            float[] massSolar = readFloatsAt(b, massOffset, n);
+            int[] hipId = readIntsAt(b, hipOffset, n);
+            byte[] flags = new byte[n];
+            b.position(flagsOffset);
+            b.get(flags);
+
+            // Spectral classes repeat a lot, so only the distinct ones are stored as strings
+            int[] spectralIndex = readIntsAt(b, spectralIndexOffset, n);
+            SpectralClass[] spectral = new SpectralClass[n];
+            for (int id = 0; id < n; id++) {
+                spectral[id] = spectralTable[spectralIndex[id]];
+            }
+
+            byte[] nameBlob = new byte[nameOffsets[n]];
+            b.position(nameBlobOffset);
+            b.get(nameBlob);
+            int[] nameStart = Arrays.copyOf(nameOffsets, n);
+            int[] nameLength = lengths(nameOffsets, n);
+
+            // Keys stay encoded; only those pointing at the loaded prefix are kept
+            byte[] keyBlob = new byte[keyOffsets[nameKeyCount]];
+            b.position(keyBlobOffset);
+            b.get(keyBlob);
+            int keys = 0;
+            int[] keyStart = new int[nameKeyCount];
+            int[] keyLength = new int[nameKeyCount];
+            int[] hashes = new int[nameKeyCount];
+            int[] ids = new int[nameKeyCount];
+            for (int i = 0; i < nameKeyCount; i++) {
+                if (keyIds[i] >= n) continue;
+                keyStart[keys] = keyOffsets[i];
+                keyLength[keys] = keyOffsets[i + 1] - keyOffsets[i];
+                hashes[keys] = keyHashes[i];
+                ids[keys] = keyIds[i];
+                keys++;
+            }
+            NameIndex nameIndex = new NameIndex(keys, keyBlob, keyStart, keyLength, hashes, ids);
+
+            return new StarCatalog(n, x, y, z, radiusKm, rgb, absMag, hipId, flags,
+                                   nameBlob, nameStart, nameLength,
+                                   spectral, distancePc, massSolar, nameIndex);
+        }
+    }
+
+    /**
+     * Writes the catalog as the cache for the given source file, with the stars sorted nearest
+     * to Sol first. The file is written under a temporary name and moved into place.
+     */
+    public static void write(Path source, StarCatalog unsorted) throws IOException {
+        Path cache = cachePathFor(source);
+        long sourceSize = Files.size(source);
+        long sourceMtime = Files.getLastModifiedTime(source).toMillis();
+        long hash = sourceHash(source, sourceSize);
+        StarCatalog catalog = unsorted.reordered(nearestFirstOrder(unsorted));
+
+        int count = catalog.size();
+        NameIndex nameIndex = catalog.nameIndex();
+        int keyCount = nameIndex.size();
+
+        // Encode strings first to know the total size
+        Map<SpectralClass, Integer> spectralIds = new HashMap<>();
+        List<byte[]> spectralTable = new ArrayList<>();
+        int[] spectralIndex = new int[count];
+        long spectralBytes = 4;
+        for (int id = 0; id < count; id++) {
+            SpectralClass spectral = catalog.getSpectralClass(id);
+            Integer index = spectralIds.get(spectral);
+            if (index == null) {
+                index = spectralTable.size();
+                spectralIds.put(spectral, index);
+                byte[] bytes = spectral.getText().getBytes(StandardCharsets.UTF_8);
+                spectralTable.add(bytes);
+                spectralBytes += 2 + bytes.length;
+            }
+            spectralIndex[id] = index;
+        }
+        byte[][] nameBytes = new byte[count][];
+        int[] nameOffsets = new int[count + 1];
+        for (int id = 0; id < count; id++) {
+            nameBytes[id] = catalog.getName(id).getBytes(StandardCharsets.UTF_8);
+            nameOffsets[id + 1] = nameOffsets[id] + nameBytes[id].length;
+        }
+        byte[][] keyBytes = new byte[keyCount][];
+        int[] keyOffsets = new int[keyCount + 1];
+        int[] keyHashes = new int[keyCount];
+        int[] keyIds = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keyBytes[i] = nameIndex.key(i).getBytes(StandardCharsets.UTF_8);
+            keyOffsets[i + 1] = keyOffsets[i] + keyBytes[i].length;
+            keyHashes[i] = nameIndex.hash(i);
+            keyIds[i] = nameIndex.id(i);
+        }
+        long stringBytes = padded(spectralBytes) + padded(count * 4L)
+                         + padded((count + 1) * 4L) + padded(nameOffsets[count])
+                         + padded((keyCount + 1) * 4L) + 2 * padded(keyCount * 4L) + padded(keyOffsets[keyCount]);
+
+        long total = HEADER_BYTES
+                   + 3 * padded(count * 8L)
+                   + padded(count * 4L) + padded(count * 12L) + 3 * padded(count * 4L)
+                   + padded(count * 4L)
+                   + padded(count)
+                   + stringBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Star catalog too large for a single cache file: " + total + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putLong(sourceSize).putLong(sourceMtime).putLong(hash);
+        buffer.putInt(count).putInt(keyCount);
+        buffer.putLong(FLAG_SORTED_BY_DISTANCE);
+
+        buffer.asDoubleBuffer().put(catalog.xs(), 0, count);
+        skip(buffer, count * 8L);
+        buffer.asDoubleBuffer().put(catalog.ys(), 0, count);
+        skip(buffer, count * 8L);
+        buffer.asDoubleBuffer().put(catalog.zs(), 0, count);
+        skip(buffer, count * 8L);
+
+        writeFloats(buffer, catalog.radiiKm(), count);
+        writeFloats(buffer, catalog.colors(), count * 3);
+        writeFloats(buffer, catalog.absoluteMagnitudes(), count);
+        writeFloats(buffer, catalog.distancesPc(), count);
+        writeFloats(buffer, catalog.massesSolar(), count);
+
+        writeInts(buffer, catalog.hipIds(), count);
+
+        buffer.put(catalog.flags(), 0, count);
+        align(buffer);
+
+        buffer.putInt(spectralTable.size());
+        for (byte[] bytes : spectralTable) {
+            writeString(buffer, bytes);
+        }
+        align(buffer);
+        writeInts(buffer, spectralIndex, count);
+
+        writeInts(buffer, nameOffsets, count + 1);
+        for (byte[] bytes : nameBytes) {
+            buffer.put(bytes);
+        }
+        align(buffer);
+
+        writeInts(buffer, keyOffsets, keyCount + 1);
+        writeInts(buffer, keyHashes, keyCount);
+        writeInts(buffer, keyIds, keyCount);
+        for (byte[] bytes : keyBytes) {
+            buffer.put(bytes);
+        }
+        align(buffer);
+        buffer.flip();
+
+        Path temp = cache.resolveSibling(cache.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Star ids ordered by distance from Sol, ties by id
+    private static int[] nearestFirstOrder(StarCatalog catalog) {
+        int count = catalog.size();
+        double[] x = catalog.xs(), y = catalog.ys(), z = catalog.zs();
+        long[] keys = new long[count];
+        for (int id = 0; id < count; id++) {
+            // Non-negative floats order the same as their bit patterns
+            float distance = (float) Math.sqrt(x[id] * x[id] + y[id] * y[id] + z[id] * z[id]);
+            keys[id] = ((long) Float.floatToIntBits(distance) << 32) | id;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    // Hash of the first and last megabyte of the source; size and mtime cover the rest
+    static long sourceHash(Path source, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer sample = ByteBuffer.allocate((int) Math.min(size, HASH_SAMPLE_BYTES));
+            readFully(channel, sample, 0);
+            crc.update(sample.flip());
+            if (size > HASH_SAMPLE_BYTES) {
+                sample.clear();
+                long tailStart = Math.max(HASH_SAMPLE_BYTES, size - HASH_SAMPLE_BYTES);
+                sample.limit((int) (size - tailStart));
+                readFully(channel, sample, tailStart);
+                crc.update(sample.flip());
+            }
+        }
+        return crc.getValue() ^ (size << 32);
+    }
+
+    // --- Buffer helpers, also used by StarTileFile for its tile blocks ---
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) break;
+            position += read;
+        }
+    }
+
+    private static void writeFloats(ByteBuffer buffer, float[] values, int count) {
+        buffer.asFloatBuffer().put(values, 0, count);
+        skip(buffer, count * 4L);
+    }
+
+    private static float[] readFloatsAt(ByteBuffer buffer, int offset, int count) {
+        float[] values = new float[count];
+        buffer.position(offset);
+        buffer.asFloatBuffer().get(values);
+        return values;
+    }
+
+    private static int[] readIntsAt(ByteBuffer buffer, int offset, int count) {
+        int[] values = new int[count];
+        buffer.position(offset);
+        buffer.asIntBuffer().get(values);
+        return values;
+    }
+
+    static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        skip(buffer, count * 4L);
+        return values;
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] values, int count) {
+        buffer.asIntBuffer().put(values, 0, count);
+        skip(buffer, count * 4L);
+    }
+
+    // Per-entry lengths from an offset table with count + 1 entries
+    static int[] lengths(int[] offsets, int count) {
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = offsets[i + 1] - offsets[i];
+        }
+        return lengths;
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for star cache: " + bytes.length + " bytes");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    // Advances past a section written through a view buffer, keeping 8-byte alignment
+    static void skip(ByteBuffer buffer, long bytes) {
+        buffer.position((int) (buffer.position() + padded(bytes)));
+    }
+
+    static void align(ByteBuffer buffer) {
+        buffer.position((int) padded(buffer.position()));
+    }
+
+    static long padded(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
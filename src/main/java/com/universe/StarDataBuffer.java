@@ -0,0 +1,123 @@
+package com.universe;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+
+/**
+ * The whole star catalog resident on the GPU, uploaded once per catalog rather than per frame.
+ *
+ * Each star takes two RGBA32F texels of a texture buffer, read in the shaders with
+ * texelFetch(starData, id * 2 + k):
+ *   texel 0: position.xyz (ly), base radius (render units)
+ *   texel 1: color.rgb, absolute magnitude
+ * so a frame only has to send the ids of the stars it draws. The aggregates of the catalog's
+ * octree follow the stars in the same layout, node n at id size() + n (see {@link #aggregateId}).
+ */
+public class StarDataBuffer {
+
+    public static final String SAMPLER_NAME = "starData";
+    public static final int TEXTURE_UNIT = 1; // Unit 0 is left to the UI font atlas
+
+    private static final int FLOATS_PER_STAR = 8;
+    private static final int FLOATS_PER_TEXEL = 4; // RGBA32F
+    private static final int TEXELS_PER_STAR = FLOATS_PER_STAR / FLOATS_PER_TEXEL;
+
+    private final int bufferId;
+    private final int textureId;
+    private final int maxTexels; // GL_MAX_TEXTURE_BUFFER_SIZE, or what one FloatBuffer holds if less
+    private StarCatalog uploaded;
+    private StarOctree uploadedIndex;
+
+    public StarDataBuffer() {
+        bufferId = GL15.glGenBuffers();
+        textureId = GL11.glGenTextures();
+        // Limits past the int range read back negative
+        int limit = GL11.glGetInteger(GL31.GL_MAX_TEXTURE_BUFFER_SIZE);
+        int bufferLimit = Integer.MAX_VALUE / FLOATS_PER_TEXEL;
+        maxTexels = limit > 0 ? Math.min(limit, bufferLimit) : bufferLimit;
+    }
+
+    /**
+     * Uploads the catalog and the aggregates of its octree unless they are the ones already on
+     * the GPU. Ids in later draws refer to this catalog. Throws if the stars and aggregates
+     * together need more texels than the implementation's texture buffers can address.
+     */
+    public void upload(StarCatalog catalog, StarOctree index) {
+        if (catalog == uploaded && index == uploadedIndex) return;
+        int count = catalog.size();
+        int nodes = index.hasAggregates() ? index.getNodeCount() : 0;
+        double[] xs = catalog.xs(), ys = catalog.ys(), zs = catalog.zs();
+        float[] radiiKm = catalog.radiiKm();
+        float[] rgb = catalog.colors();
+        float[] absMag = catalog.absoluteMagnitudes();
+
+        // At least one star's worth, since an empty buffer can't back a texture
+        long texels = Math.max((long) count + nodes, 1) * TEXELS_PER_STAR;
+        if (texels > maxTexels) {
+            throw new RuntimeException(String.format(
+                "Too many stars for the GPU: %d stars and %d aggregates need %d texels, the texture buffer limit is %d",
+                count, nodes, texels, maxTexels));
+        }
+        FloatBuffer data = MemoryUtil.memAllocFloat((int) texels * FLOATS_PER_TEXEL);
+        try {
+            putStars(data, count, xs, ys, zs, radiiKm, rgb, absMag);
+            if (nodes > 0) {
+                putStars(data, nodes, index.aggregateXs(), index.aggregateYs(), index.aggregateZs(),
+                         index.aggregateRadiiKm(), index.aggregateColors(), index.aggregateAbsoluteMagnitudes());
+            }
+            while (data.hasRemaining()) {
+                data.put(0f);
+            }
+            data.flip();
+
+            GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, bufferId);
+            GL15.glBufferData(GL31.GL_TEXTURE_BUFFER, data, GL15.GL_STATIC_DRAW);
+            GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, 0);
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+
+        // Reattach so the texture picks up the new buffer storage
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, textureId);
+        GL31.glTexBuffer(GL31.GL_TEXTURE_BUFFER, GL30.GL_RGBA32F, bufferId);
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, 0);
+
+        uploaded = catalog;
+        uploadedIndex = index;
+        System.out.printf("Uploaded %d stars and %d aggregates to the GPU (%.1f MB)%n",
+                          count, nodes, (double) (count + nodes) * FLOATS_PER_STAR * Float.BYTES / (1024 * 1024));
+    }
+
+    private static void putStars(FloatBuffer data, int count, double[] xs, double[] ys, double[] zs,
+                                 float[] radiiKm, float[] rgb, float[] absMag) {
+        for (int id = 0; id < count; id++) {
+            data.put((float) xs[id]).put((float) ys[id]).put((float) zs[id]);
+            data.put(radiiKm[id] * StarRenderer.KM_TO_RENDER_RADIUS);
+            data.put(rgb[id * 3]).put(rgb[id * 3 + 1]).put(rgb[id * 3 + 2]);
+            data.put(absMag[id]);
+        }
+    }
+
+    /** Id of an octree node's aggregate in the uploaded data. */
+    public int aggregateId(int node) {
+        return uploaded.size() + node;
+    }
+
+    /** Binds the star data to {@link #TEXTURE_UNIT}. */
+    public void bind() {
+        GL13.glActiveTexture(GL13.GL_TEXTURE0 + TEXTURE_UNIT);
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, textureId);
+        GL13.glActiveTexture(GL13.GL_TEXTURE0);
+    }
+
+    public void cleanup() {
+        GL11.glDeleteTextures(textureId);
+        GL15.glDeleteBuffers(bufferId);
+    }
+}
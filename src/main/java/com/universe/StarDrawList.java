@@ -0,0 +1,208 @@
+package com.universe;
+
+import java.util.Arrays;
+
+/**
+ * Visible stars ordered farthest first, kept from frame to frame.
+ *
+ * Each entry is a star id and a sort key derived from its float distance to the camera
+ * (0x7FFFFFFF minus the float bits, so ascending keys mean descending distance; non-negative
+ * floats order the same as their bit patterns). A new frame starts from the previous frame's
+ * order, so for a slowly moving camera the carried-over stars are already nearly sorted and an
+ * insertion sort with a linear work budget finishes them. Stars that just became visible are
+ * sorted on their own and merged in. Whenever the budget runs out, a stable LSD radix sort over
+ * the keys takes over. Equal distances keep their previous order. Nothing is allocated once the
+ * arrays have grown to the visible set size.
+ */
+public class StarDrawList {
+
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX_PASSES = 3; // Keys are 31 bits
+    private static final int INSERTION_BUDGET = 4; // Element moves allowed per entry before radix sorting
+
+    private int size;
+    private int[] ids;
+    private int[] keys;
+    private int[] scratchIds;
+    private int[] scratchKeys;
+    private final int[] counts = new int[1 << RADIX_BITS];
+
+    // Per-star mark of the frame the star was last seen visible in (2 * frame) or added in (2 * frame + 1)
+    private int[] stamps = new int[0];
+    private int frame;
+
+    public StarDrawList() {
+        this(4096);
+    }
+
+    public StarDrawList(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new int[capacity];
+        keys = new int[capacity];
+        scratchIds = new int[capacity];
+        scratchKeys = new int[capacity];
+    }
+
+    /**
+     * Forgets the previous order. Must be called when star ids change meaning (a new catalog).
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Rebuilds the list from this frame's visible star ids and sorts it farthest first.
+     * Stars still visible keep their place from the previous frame before sorting.
+     */
+    public void build(StarCatalog catalog, IntList visible, double camX, double camY, double camZ) {
+        if (stamps.length < catalog.size()) {
+            stamps = Arrays.copyOf(stamps, Math.max(catalog.size(), stamps.length * 2));
+        }
+        if (++frame > Integer.MAX_VALUE / 2 - 1) {
+            Arrays.fill(stamps, 0);
+            frame = 1;
+        }
+        int seen = frame * 2, added = frame * 2 + 1;
+
+        int[] visibleIds = visible.array();
+        int visibleCount = visible.size();
+        for (int i = 0; i < visibleCount; i++) {
+            stamps[visibleIds[i]] = seen;
+        }
+
+        // Previous order first, then the stars that just became visible
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int id = ids[i];
+            if (id < stamps.length && stamps[id] == seen) {
+                stamps[id] = added;
+                ids[kept++] = id;
+            }
+        }
+        ensureCapacity(visibleCount);
+        size = kept;
+        for (int i = 0; i < visibleCount; i++) {
+            int id = visibleIds[i];
+            if (stamps[id] == seen) {
+                stamps[id] = added;
+                ids[size++] = id;
+            }
+        }
+
+        double[] xs = catalog.xs(), ys = catalog.ys(), zs = catalog.zs();
+        for (int i = 0; i < size; i++) {
+            int id = ids[i];
+            double dx = xs[id] - camX;
+            double dy = ys[id] - camY;
+            double dz = zs[id] - camZ;
+            float distance = (float) Math.sqrt(dx*dx + dy*dy + dz*dz);
+            keys[i] = Integer.MAX_VALUE - Float.floatToRawIntBits(distance);
+        }
+
+        // Carried-over stars are nearly sorted; newcomers are in index order, so sort them apart
+        if (!insertionSort(0, kept, (long) kept * INSERTION_BUDGET)) {
+            radixSort(0, kept);
+        }
+        if (!insertionSort(kept, size, (long) (size - kept) * INSERTION_BUDGET)) {
+            radixSort(kept, size);
+        }
+        merge(kept);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    // Distance from the camera (ly) the entry was sorted by
+    public float distance(int index) {
+        return Float.intBitsToFloat(Integer.MAX_VALUE - keys[index]);
+    }
+
+    // Stable insertion sort of [from, to); gives up (returning false) once more than budget moves were needed
+    private boolean insertionSort(int from, int to, long budget) {
+        for (int i = from + 1; i < to; i++) {
+            int key = keys[i];
+            if (keys[i - 1] <= key) continue;
+            int id = ids[i];
+            int j = i;
+            do {
+                keys[j] = keys[j - 1];
+                ids[j] = ids[j - 1];
+                j--;
+            } while (j > from && keys[j - 1] > key);
+            keys[j] = key;
+            ids[j] = id;
+            budget -= i - j;
+            if (budget < 0) return false;
+        }
+        return true;
+    }
+
+    // Stable LSD radix sort of (keys, ids) in [from, to) by key
+    private void radixSort(int from, int to) {
+        int mask = (1 << RADIX_BITS) - 1;
+        int[] srcKeys = keys, srcIds = ids, dstKeys = scratchKeys, dstIds = scratchIds;
+        for (int pass = 0; pass < RADIX_PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            Arrays.fill(counts, 0);
+            for (int i = from; i < to; i++) {
+                counts[(srcKeys[i] >>> shift) & mask]++;
+            }
+            int sum = from;
+            for (int b = 0; b < counts.length; b++) {
+                int c = counts[b];
+                counts[b] = sum;
+                sum += c;
+            }
+            for (int i = from; i < to; i++) {
+                int slot = counts[(srcKeys[i] >>> shift) & mask]++;
+                dstKeys[slot] = srcKeys[i];
+                dstIds[slot] = srcIds[i];
+            }
+            int[] t = srcKeys; srcKeys = dstKeys; dstKeys = t;
+            t = srcIds; srcIds = dstIds; dstIds = t;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, from, keys, from, to - from);
+            System.arraycopy(srcIds, from, ids, from, to - from);
+        }
+    }
+
+    // Merges the sorted runs [0, mid) and [mid, size), the first run winning ties
+    private void merge(int mid) {
+        if (mid == 0 || mid == size || keys[mid - 1] <= keys[mid]) return;
+        int i = 0, j = mid, out = 0;
+        while (i < mid && j < size) {
+            if (keys[j] < keys[i]) {
+                scratchKeys[out] = keys[j];
+                scratchIds[out++] = ids[j++];
+            } else {
+                scratchKeys[out] = keys[i];
+                scratchIds[out++] = ids[i++];
+            }
+        }
+        while (i < mid) {
+            scratchKeys[out] = keys[i];
+            scratchIds[out++] = ids[i++];
+        }
+        while (j < size) {
+            scratchKeys[out] = keys[j];
+            scratchIds[out++] = ids[j++];
+        }
+        int[] t = keys; keys = scratchKeys; scratchKeys = t;
+        t = ids; ids = scratchIds; scratchIds = t;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        scratchIds = new int[newCapacity];
+        scratchKeys = new int[newCapacity];
+    }
+}
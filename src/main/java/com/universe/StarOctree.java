@@ -0,0 +1,465 @@
+package com.universe;
+
+import org.joml.FrustumIntersection;
+
+import java.util.Arrays;
+
+/**
+ * Static octree over star positions, built once after the catalog is loaded.
+ * Stars are referenced by their index into the coordinate arrays passed to the constructor.
+ * Items are reordered so every node owns a contiguous range, which lets fully
+ * contained nodes be emitted without visiting their children.
+ *
+ * With {@link #buildAggregates} every node also summarizes its stars as one light source
+ * (luminosity-weighted centroid and color, total luminosity as an absolute magnitude), and the
+ * frustum query can return a node in place of its stars once it covers less than a given angle.
+ * The same pass records each node's brightest and faintest member, which lets the query cull by
+ * apparent magnitude a whole subtree at a time.
+ */
+public class StarOctree {
+
+    private static final int MAX_LEAF_SIZE = 32;
+    private static final int MAX_DEPTH = 20;
+
+    // Star coordinates in light-years, indexed by star index
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    // Bounding sphere radius of each star as rendered (light-years)
+    private final float[] radii;
+
+    // Star indices grouped by node; node n owns items[itemStart[n]..itemEnd[n])
+    private final int[] items;
+
+    // Node data (structure of arrays). Bounds are the tight bounds of the node's stars.
+    private int nodeCount;
+    private double[] minX, minY, minZ, maxX, maxY, maxZ;
+    private int[] firstChild; // -1 for leaves, children are stored consecutively
+    private byte[] childCount;
+    private int[] itemStart;
+    private int[] itemEnd;
+    private float[] maxRadius; // Largest star bounding radius in the node
+
+    // Per-node aggregates, null until buildAggregates()
+    private double[] aggX, aggY, aggZ; // Luminosity-weighted centroid
+    private float[] aggRgb;           // Luminosity-weighted color, 3 per node
+    private float[] aggAbsMag;        // Absolute magnitude of the combined luminosity
+    private float[] aggRadiusKm;      // Largest physical radius in the node
+    private double[] aggLuminosity;   // Combined luminosity, see buildAggregates()
+    private double[] maxLuminosity;   // Brightest member
+    private double[] minLuminosity;   // Faintest member
+    private double[] starLuminosity;  // Indexed by star index
+
+    // Flux ratio between a star at 10 parsecs and the same star at 1 ly: (10 pc in ly)^2
+    private static final double TEN_PARSECS_LY_SQUARED = 32.6156 * 32.6156;
+
+    // Reused traversal stack (queries are expected to run on a single thread)
+    private int[] stack = new int[8 * MAX_DEPTH + 8];
+
+    public StarOctree(double[] xs, double[] ys, double[] zs, float[] radii, int count) {
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.radii = radii;
+        this.items = new int[count];
+        for (int i = 0; i < count; i++) items[i] = i;
+
+        int initialNodes = Math.max(16, count / (MAX_LEAF_SIZE / 2));
+        minX = new double[initialNodes]; minY = new double[initialNodes]; minZ = new double[initialNodes];
+        maxX = new double[initialNodes]; maxY = new double[initialNodes]; maxZ = new double[initialNodes];
+        firstChild = new int[initialNodes];
+        childCount = new byte[initialNodes];
+        itemStart = new int[initialNodes];
+        itemEnd = new int[initialNodes];
+        maxRadius = new float[initialNodes];
+
+        long startTime = System.nanoTime();
+        int root = allocateNodes(1);
+        buildNode(root, 0, count, new int[count], 0);
+        System.out.printf("Built star octree: %d stars, %d nodes in %.1f ms%n",
+                          count, nodeCount, (System.nanoTime() - startTime) / 1e6);
+    }
+
+    private void buildNode(int node, int start, int end, int[] scratch, int depth) {
+        itemStart[node] = start;
+        itemEnd[node] = end;
+        firstChild[node] = -1;
+        childCount[node] = 0;
+
+        // Tight bounds of the stars in this node
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        float r = 0.0f;
+        for (int i = start; i < end; i++) {
+            int s = items[i];
+            x0 = Math.min(x0, xs[s]); x1 = Math.max(x1, xs[s]);
+            y0 = Math.min(y0, ys[s]); y1 = Math.max(y1, ys[s]);
+            z0 = Math.min(z0, zs[s]); z1 = Math.max(z1, zs[s]);
+            r = Math.max(r, radii[s]);
+        }
+        minX[node] = x0; minY[node] = y0; minZ[node] = z0;
+        maxX[node] = x1; maxY[node] = y1; maxZ[node] = z1;
+        maxRadius[node] = r;
+
+        int count = end - start;
+        if (count <= MAX_LEAF_SIZE || depth >= MAX_DEPTH) return;
+        if (x0 == x1 && y0 == y1 && z0 == z1) return; // All stars share one position
+
+        // Split around the center of the tight bounds (counting sort by octant)
+        double cx = (x0 + x1) * 0.5, cy = (y0 + y1) * 0.5, cz = (z0 + z1) * 0.5;
+        int[] octantCounts = new int[8];
+        for (int i = start; i < end; i++) {
+            octantCounts[octantOf(items[i], cx, cy, cz)]++;
+        }
+        int[] octantOffsets = new int[8];
+        int offset = start;
+        for (int o = 0; o < 8; o++) {
+            octantOffsets[o] = offset;
+            offset += octantCounts[o];
+        }
+        int[] cursor = octantOffsets.clone();
+        for (int i = start; i < end; i++) {
+            int s = items[i];
+            scratch[cursor[octantOf(s, cx, cy, cz)]++] = s;
+        }
+        System.arraycopy(scratch, start, items, start, count);
+
+        // Allocate the non-empty children consecutively, then build them
+        int children = 0;
+        for (int o = 0; o < 8; o++) {
+            if (octantCounts[o] > 0) children++;
+        }
+        int first = allocateNodes(children);
+        firstChild[node] = first;
+        childCount[node] = (byte) children;
+        int child = first;
+        for (int o = 0; o < 8; o++) {
+            if (octantCounts[o] == 0) continue;
+            buildNode(child++, octantOffsets[o], octantOffsets[o] + octantCounts[o], scratch, depth + 1);
+        }
+    }
+
+    private int octantOf(int s, double cx, double cy, double cz) {
+        return (xs[s] >= cx ? 1 : 0) | (ys[s] >= cy ? 2 : 0) | (zs[s] >= cz ? 4 : 0);
+    }
+
+    private int allocateNodes(int count) {
+        int first = nodeCount;
+        nodeCount += count;
+        if (nodeCount > firstChild.length) {
+            int capacity = Math.max(nodeCount, firstChild.length * 2);
+            minX = Arrays.copyOf(minX, capacity); minY = Arrays.copyOf(minY, capacity); minZ = Arrays.copyOf(minZ, capacity);
+            maxX = Arrays.copyOf(maxX, capacity); maxY = Arrays.copyOf(maxY, capacity); maxZ = Arrays.copyOf(maxZ, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            itemStart = Arrays.copyOf(itemStart, capacity);
+            itemEnd = Arrays.copyOf(itemEnd, capacity);
+            maxRadius = Arrays.copyOf(maxRadius, capacity);
+        }
+        return first;
+    }
+
+    /**
+     * Computes the per-node aggregates from the catalog columns the octree was built over.
+     * Luminosity is 10^(-0.4 * absMag), in units of a magnitude 0 star; besides the aggregates
+     * this records the per-star luminosities and each node's brightest and faintest member for
+     * the magnitude limit of {@link #queryFrustum}.
+     */
+    public void buildAggregates(float[] rgb, float[] absMag, float[] radiiKm) {
+        long startTime = System.nanoTime();
+        aggX = new double[nodeCount]; aggY = new double[nodeCount]; aggZ = new double[nodeCount];
+        aggRgb = new float[nodeCount * 3];
+        aggAbsMag = new float[nodeCount];
+        aggRadiusKm = new float[nodeCount];
+        aggLuminosity = new double[nodeCount];
+        maxLuminosity = new double[nodeCount];
+        minLuminosity = new double[nodeCount];
+        starLuminosity = new double[items.length];
+        for (int s = 0; s < items.length; s++) {
+            starLuminosity[s] = Math.pow(10.0, -0.4 * absMag[s]);
+        }
+
+        // Children are allocated after their parent, so a reverse sweep visits them first
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            double l = 0, x = 0, y = 0, z = 0, r = 0, g = 0, b = 0;
+            double brightest = 0, faintest = Double.POSITIVE_INFINITY;
+            float radius = 0;
+            if (firstChild[node] < 0) {
+                for (int i = itemStart[node]; i < itemEnd[node]; i++) {
+                    int s = items[i];
+                    double ls = starLuminosity[s];
+                    l += ls;
+                    brightest = Math.max(brightest, ls);
+                    faintest = Math.min(faintest, ls);
+                    x += ls * xs[s]; y += ls * ys[s]; z += ls * zs[s];
+                    r += ls * rgb[s * 3]; g += ls * rgb[s * 3 + 1]; b += ls * rgb[s * 3 + 2];
+                    radius = Math.max(radius, radiiKm[s]);
+                }
+            } else {
+                for (int c = firstChild[node]; c < firstChild[node] + childCount[node]; c++) {
+                    double lc = aggLuminosity[c];
+                    l += lc;
+                    brightest = Math.max(brightest, maxLuminosity[c]);
+                    faintest = Math.min(faintest, minLuminosity[c]);
+                    x += lc * aggX[c]; y += lc * aggY[c]; z += lc * aggZ[c];
+                    r += lc * aggRgb[c * 3]; g += lc * aggRgb[c * 3 + 1]; b += lc * aggRgb[c * 3 + 2];
+                    radius = Math.max(radius, aggRadiusKm[c]);
+                }
+            }
+            aggLuminosity[node] = l;
+            maxLuminosity[node] = brightest;
+            minLuminosity[node] = faintest;
+            if (l > 0) {
+                aggX[node] = x / l; aggY[node] = y / l; aggZ[node] = z / l;
+                aggRgb[node * 3] = (float) (r / l);
+                aggRgb[node * 3 + 1] = (float) (g / l);
+                aggRgb[node * 3 + 2] = (float) (b / l);
+            } else {
+                aggX[node] = (minX[node] + maxX[node]) * 0.5;
+                aggY[node] = (minY[node] + maxY[node]) * 0.5;
+                aggZ[node] = (minZ[node] + maxZ[node]) * 0.5;
+            }
+            aggAbsMag[node] = l > 0 ? (float) (-2.5 * Math.log10(l)) : Float.POSITIVE_INFINITY;
+            aggRadiusKm[node] = radius;
+        }
+        System.out.printf("Aggregated %d octree nodes in %.1f ms%n", nodeCount, (System.nanoTime() - startTime) / 1e6);
+    }
+
+    public boolean hasAggregates() {
+        return aggX != null;
+    }
+
+    // Aggregate columns indexed by node, laid out like the StarCatalog ones
+    public double[] aggregateXs() { return aggX; }
+    public double[] aggregateYs() { return aggY; }
+    public double[] aggregateZs() { return aggZ; }
+    public float[] aggregateColors() { return aggRgb; }
+    public float[] aggregateAbsoluteMagnitudes() { return aggAbsMag; }
+    public float[] aggregateRadiiKm() { return aggRadiusKm; }
+
+    // --- Queries ---
+
+    /**
+     * Collects all stars within radius of (cx, cy, cz).
+     */
+    public void querySphere(double cx, double cy, double cz, double radius, IntList out) {
+        if (nodeCount == 0 || items.length == 0) return;
+        double r2 = radius * radius;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (minDistanceSquared(node, cx, cy, cz) > r2) continue;
+
+            if (maxDistanceSquared(node, cx, cy, cz) <= r2) {
+                // Whole node is inside the sphere
+                out.addAll(items, itemStart[node], itemEnd[node]);
+            } else if (firstChild[node] < 0) {
+                for (int i = itemStart[node]; i < itemEnd[node]; i++) {
+                    int s = items[i];
+                    double dx = xs[s] - cx, dy = ys[s] - cy, dz = zs[s] - cz;
+                    if (dx*dx + dy*dy + dz*dz <= r2) out.add(s);
+                }
+            } else {
+                top = pushChildren(node, top);
+            }
+        }
+    }
+
+    /**
+     * Collects all stars within maxDistance of the origin whose direction from the origin
+     * lies inside the cone around (dirX, dirY, dirZ), i.e. dot(normalize(star - origin), dir) > cosHalfAngle.
+     * The direction must be normalized.
+     */
+    public void queryCone(double ox, double oy, double oz, double dirX, double dirY, double dirZ,
+                          double cosHalfAngle, double maxDistance, IntList out) {
+        if (nodeCount == 0 || items.length == 0) return;
+        double maxDist2 = maxDistance * maxDistance;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (minDistanceSquared(node, ox, oy, oz) > maxDist2) continue;
+            if (!coneIntersectsNode(node, ox, oy, oz, dirX, dirY, dirZ, cosHalfAngle)) continue;
+
+            if (firstChild[node] < 0) {
+                for (int i = itemStart[node]; i < itemEnd[node]; i++) {
+                    int s = items[i];
+                    double dx = xs[s] - ox, dy = ys[s] - oy, dz = zs[s] - oz;
+                    double dist2 = dx*dx + dy*dy + dz*dz;
+                    if (dist2 > maxDist2 || dist2 == 0.0) continue;
+                    double dot = dx*dirX + dy*dirY + dz*dirZ;
+                    if (dot > cosHalfAngle * Math.sqrt(dist2)) out.add(s);
+                }
+            } else {
+                top = pushChildren(node, top);
+            }
+        }
+    }
+
+    /**
+     * Collects all stars whose bounding sphere intersects the frustum and whose center lies
+     * within maxDistance of the camera. Nodes are tested against the frustum with their bounds
+     * expanded by the largest star radius they contain, so off-screen regions are rejected
+     * and fully visible regions accepted without touching individual stars.
+     */
+    public void queryFrustum(FrustumIntersection frustum, double camX, double camY, double camZ,
+                             double maxDistance, IntList out, CullStats stats) {
+        queryFrustum(frustum, camX, camY, camZ, maxDistance, Double.POSITIVE_INFINITY, 0.0, out, null, stats);
+    }
+
+    /**
+     * Like {@link #queryFrustum(FrustumIntersection, double, double, double, double, IntList, CullStats)},
+     * but a visible node of several stars that lies within maxDistance and whose bounds subtend
+     * less than maxNodeAngle (radians) from the camera goes to outNodes instead of its stars going
+     * to out. Aggregated nodes are dropped if their combined light is fainter than magnitudeLimit.
+     *
+     * Stars fainter than magnitudeLimit in apparent magnitude (m = M + 5 log10(d / 10 pc)) are
+     * culled too, along with whole nodes whose brightest member would be fainter at the node's
+     * nearest point. Both need {@link #buildAggregates}; without aggregates no node is returned
+     * and the magnitude limit is ignored, as it is when infinite.
+     */
+    public void queryFrustum(FrustumIntersection frustum, double camX, double camY, double camZ,
+                             double maxDistance, double magnitudeLimit, double maxNodeAngle,
+                             IntList out, IntList outNodes, CullStats stats) {
+        if (nodeCount == 0 || items.length == 0) return;
+        double maxDist2 = maxDistance * maxDistance;
+        // A star of luminosity L at squared distance d2 is visible while L >= minFlux * d2
+        boolean limitMagnitude = aggX != null && magnitudeLimit < Double.POSITIVE_INFINITY;
+        double minFlux = limitMagnitude ? Math.pow(10.0, -0.4 * magnitudeLimit) / TEN_PARSECS_LY_SQUARED : 0.0;
+        boolean aggregate = maxNodeAngle > 0 && aggX != null && outNodes != null;
+        double maxAngle2 = maxNodeAngle * maxNodeAngle;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int nodeStars = itemEnd[node] - itemStart[node];
+            stats.nodesVisited++;
+
+            if (minDistanceSquared(node, camX, camY, camZ) > maxDist2) {
+                stats.starsRejected += nodeStars;
+                continue;
+            }
+
+            float r = maxRadius[node];
+            int result = frustum.intersectAab(
+                (float)(minX[node] - r), (float)(minY[node] - r), (float)(minZ[node] - r),
+                (float)(maxX[node] + r), (float)(maxY[node] + r), (float)(maxZ[node] + r));
+            if (result != FrustumIntersection.INSIDE && result != FrustumIntersection.INTERSECT) {
+                stats.starsRejected += nodeStars;
+                continue;
+            }
+
+            if (aggregate && nodeStars > 1 && maxDistanceSquared(node, camX, camY, camZ) <= maxDist2) {
+                // Angular diameter of the bounds' enclosing sphere, as seen from its nearest point
+                double ex = maxX[node] - minX[node], ey = maxY[node] - minY[node], ez = maxZ[node] - minZ[node];
+                double diameter2 = ex*ex + ey*ey + ez*ez;
+                if (diameter2 < maxAngle2 * minDistanceSquared(node, camX, camY, camZ)) {
+                    double dx = aggX[node] - camX, dy = aggY[node] - camY, dz = aggZ[node] - camZ;
+                    if (aggLuminosity[node] >= minFlux * (dx*dx + dy*dy + dz*dz)) {
+                        outNodes.add(node);
+                        stats.nodesAggregated++;
+                        stats.starsAggregated += nodeStars;
+                    } else {
+                        stats.starsRejected += nodeStars;
+                        stats.starsTooFaint += nodeStars;
+                    }
+                    continue;
+                }
+            }
+
+            if (limitMagnitude && maxLuminosity[node] < minFlux * minDistanceSquared(node, camX, camY, camZ)) {
+                // Even the brightest member is too faint from the node's nearest point
+                stats.starsRejected += nodeStars;
+                stats.starsTooFaint += nodeStars;
+                continue;
+            }
+
+            double nodeMaxDist2 = maxDistanceSquared(node, camX, camY, camZ);
+            if (result == FrustumIntersection.INSIDE && nodeMaxDist2 <= maxDist2
+                    && (!limitMagnitude || minLuminosity[node] >= minFlux * nodeMaxDist2)) {
+                // Whole node is visible
+                out.addAll(items, itemStart[node], itemEnd[node]);
+                stats.starsAccepted += nodeStars;
+            } else if (firstChild[node] < 0) {
+                for (int i = itemStart[node]; i < itemEnd[node]; i++) {
+                    int s = items[i];
+                    stats.starsTested++;
+                    double dx = xs[s] - camX, dy = ys[s] - camY, dz = zs[s] - camZ;
+                    double dist2 = dx*dx + dy*dy + dz*dz;
+                    if (limitMagnitude && starLuminosity[s] < minFlux * dist2) {
+                        stats.starsRejected++;
+                        stats.starsTooFaint++;
+                    } else if (dist2 <= maxDist2
+                            && frustum.testSphere((float) xs[s], (float) ys[s], (float) zs[s], radii[s])) {
+                        out.add(s);
+                        stats.starsAccepted++;
+                    } else {
+                        stats.starsRejected++;
+                    }
+                }
+            } else {
+                top = pushChildren(node, top);
+            }
+        }
+    }
+
+    // Conservative cone test against the bounding sphere of the node's bounds
+    private boolean coneIntersectsNode(int node, double ox, double oy, double oz,
+                                       double dirX, double dirY, double dirZ, double cosHalfAngle) {
+        double cx = (minX[node] + maxX[node]) * 0.5 - ox;
+        double cy = (minY[node] + maxY[node]) * 0.5 - oy;
+        double cz = (minZ[node] + maxZ[node]) * 0.5 - oz;
+        double ex = (maxX[node] - minX[node]) * 0.5;
+        double ey = (maxY[node] - minY[node]) * 0.5;
+        double ez = (maxZ[node] - minZ[node]) * 0.5;
+        double radius = Math.sqrt(ex*ex + ey*ey + ez*ez);
+
+        double len = Math.sqrt(cx*cx + cy*cy + cz*cz);
+        if (len <= radius) return true; // Origin is inside the node's bounding sphere
+
+        // The sphere subtends an angle asin(radius / len); it intersects the cone if
+        // angle(dir, center) <= halfAngle + asin(radius / len)
+        double cosA = (cx*dirX + cy*dirY + cz*dirZ) / len;
+        double sinA = Math.sqrt(Math.max(0.0, 1.0 - cosA * cosA));
+        double sinR = radius / len;
+        double cosR = Math.sqrt(Math.max(0.0, 1.0 - sinR * sinR));
+        // cos(A - R) >= cos(halfAngle) <=> A - R <= halfAngle (both angles in [0, pi])
+        if (cosA >= cosR) return true; // A <= R
+        return cosA * cosR + sinA * sinR >= cosHalfAngle;
+    }
+
+    private int pushChildren(int node, int top) {
+        int first = firstChild[node];
+        int count = childCount[node];
+        if (top + count > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        for (int c = 0; c < count; c++) {
+            stack[top++] = first + c;
+        }
+        return top;
+    }
+
+    private double minDistanceSquared(int node, double px, double py, double pz) {
+        double dx = Math.max(0.0, Math.max(minX[node] - px, px - maxX[node]));
+        double dy = Math.max(0.0, Math.max(minY[node] - py, py - maxY[node]));
+        double dz = Math.max(0.0, Math.max(minZ[node] - pz, pz - maxZ[node]));
+        return dx*dx + dy*dy + dz*dz;
+    }
+
+    private double maxDistanceSquared(int node, double px, double py, double pz) {
+        double dx = Math.max(Math.abs(minX[node] - px), Math.abs(maxX[node] - px));
+        double dy = Math.max(Math.abs(minY[node] - py), Math.abs(maxY[node] - py));
+        double dz = Math.max(Math.abs(minZ[node] - pz), Math.abs(maxZ[node] - pz));
+        return dx*dx + dy*dy + dz*dz;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int size() {
+        return items.length;
+    }
+}
@@ -0,0 +1,165 @@
+package com.universe;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Removes stars that overlap a smaller star (the center of one lies inside the other).
+ *
+ * Stars are hashed into a uniform grid whose cell size is the largest star radius, so every
+ * overlapping pair lies in the same or an adjacent cell. Cells are grouped by sorting one long
+ * per star (cell hash in the high half, star id in the low half) and looked up through a
+ * primitive hash from cell hash to the start of its run. The neighbor probe runs in parallel
+ * and only flags stars that overlap a smaller one; those few candidates are then resolved in
+ * order of increasing radius, so a star that is itself removed does not knock out its neighbors.
+ * Ties are broken by star id, keeping the earlier star.
+ */
+public class StarOverlapResolver {
+
+    private static final double KM_TO_LY = 1.057e-13; // Conversion factor: kilometers to light-years
+
+    private final double[] xs, ys, zs;
+    private final float[] radiiKm;
+    private final int count;
+
+    private double cellSize;
+    private long[] sorted;          // (cell hash << 32) | star id, ascending
+    private IntIntHashMap cellStart; // Cell hash -> index of its first entry in sorted
+
+    private StarOverlapResolver(StarCatalog stars) {
+        xs = stars.xs();
+        ys = stars.ys();
+        zs = stars.zs();
+        radiiKm = stars.radiiKm();
+        count = stars.size();
+    }
+
+    /**
+     * Removes every star that overlaps a smaller one, compacting the catalog.
+     * Star ids are reassigned (see {@link StarCatalog#removeAll}). Returns the number removed.
+     */
+    public static int removeOverlaps(StarCatalog stars) {
+        System.out.println("Starting overlap removal with " + stars.size() + " stars");
+        long startTime = System.nanoTime();
+
+        StarOverlapResolver resolver = new StarOverlapResolver(stars);
+        boolean[] remove = resolver.findLarger();
+        long resolvedTime = System.nanoTime();
+
+        // Remove the identified stars (compacts the catalog and its indices)
+        int removed = stars.removeAll(remove);
+        long endTime = System.nanoTime();
+
+        System.out.printf("Removed %d overlapping stars (larger ones) in %.1f ms (detect %.1f ms, compact %.1f ms)%n",
+                          removed, (endTime - startTime) / 1e6,
+                          (resolvedTime - startTime) / 1e6, (endTime - resolvedTime) / 1e6);
+        return removed;
+    }
+
+    // Flags the stars to remove
+    private boolean[] findLarger() {
+        boolean[] remove = new boolean[count];
+        float maxRadiusKm = 0;
+        for (int id = 0; id < count; id++) {
+            maxRadiusKm = Math.max(maxRadiusKm, radiiKm[id]);
+        }
+        // Overlap needs a distance below one of the radii, so without any radius there is none
+        if (count < 2 || maxRadiusKm <= 0) return remove;
+        cellSize = maxRadiusKm * KM_TO_LY;
+        buildGrid();
+
+        // Parallel pass: stars that overlap no smaller star are kept no matter what
+        boolean[] candidate = new boolean[count];
+        IntStream.range(0, count).parallel().forEach(id -> candidate[id] = overlapsSmaller(id, null));
+
+        IntList candidates = new IntList();
+        for (int id = 0; id < count; id++) {
+            if (candidate[id]) candidates.add(id);
+        }
+        if (candidates.isEmpty()) return remove;
+
+        // Sequential pass, smallest first: every smaller star has been decided before it is checked
+        long[] order = new long[candidates.size()];
+        for (int i = 0; i < order.length; i++) {
+            int id = candidates.get(i);
+            order[i] = ((long) Float.floatToIntBits(radiiKm[id]) << 32) | id;
+        }
+        Arrays.sort(order);
+        for (long entry : order) {
+            int id = (int) entry;
+            remove[id] = overlapsSmaller(id, remove);
+        }
+        return remove;
+    }
+
+    private void buildGrid() {
+        sorted = new long[count];
+        IntStream.range(0, count).parallel().forEach(id -> {
+            int hash = cellHash(cell(xs[id]), cell(ys[id]), cell(zs[id]));
+            sorted[id] = ((long) hash << 32) | id;
+        });
+        Arrays.parallelSort(sorted);
+
+        cellStart = new IntIntHashMap(count);
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || (int) (sorted[i] >> 32) != (int) (sorted[i - 1] >> 32)) {
+                cellStart.put((int) (sorted[i] >> 32), i);
+            }
+        }
+    }
+
+    /**
+     * Whether the star overlaps a smaller star (ties: lower id) that is not flagged in removed.
+     * removed may be null to consider every star.
+     */
+    private boolean overlapsSmaller(int id, boolean[] removed) {
+        long cx = cell(xs[id]), cy = cell(ys[id]), cz = cell(zs[id]);
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                for (long dz = -1; dz <= 1; dz++) {
+                    int hash = cellHash(cx + dx, cy + dy, cz + dz);
+                    int i = cellStart.get(hash, -1);
+                    if (i < 0) continue;
+                    // Hash collisions only add candidates; the distance check below is exact
+                    for (; i < count && (int) (sorted[i] >> 32) == hash; i++) {
+                        int other = (int) sorted[i];
+                        if (other == id || !isSmaller(other, id)) continue;
+                        if (removed != null && removed[other]) continue;
+                        if (overlaps(id, other)) return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Whether star a wins over star b: smaller radius, or same radius and lower id
+    private boolean isSmaller(int a, int b) {
+        return radiiKm[a] < radiiKm[b] || (radiiKm[a] == radiiKm[b] && a < b);
+    }
+
+    // Check if the center of one star is inside the radius of the other
+    private boolean overlaps(int id1, int id2) {
+        double dx = xs[id1] - xs[id2];
+        double dy = ys[id1] - ys[id2];
+        double dz = zs[id1] - zs[id2];
+        double distanceBetween = Math.sqrt(dx*dx + dy*dy + dz*dz);
+        double radius1_ly = radiiKm[id1] * KM_TO_LY;
+        double radius2_ly = radiiKm[id2] * KM_TO_LY;
+        return (distanceBetween < radius1_ly) || (distanceBetween < radius2_ly);
+    }
+
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    // Nonzero hash of a cell coordinate (0 is reserved by IntIntHashMap)
+    private static int cellHash(long cx, long cy, long cz) {
+        long h = cx * 0x9E3779B97F4A7C15L + cy * 0xC2B2AE3D27D4EB4FL + cz * 0x165667B19E3779F9L;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        int hash = (int) h;
+        return hash != 0 ? hash : 1;
+    }
+}
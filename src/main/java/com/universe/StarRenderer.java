@@ -0,0 +1,573 @@
+package com.universe;
+
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Draws stars as instanced spheres, or as point sprites when they would cover only a few pixels.
+ * Visible stars are appended with {@link #addStar(int, double)}, distant octree nodes standing in
+ * for their stars with {@link #addAggregate(int)}, and the whole set is submitted by
+ * {@link #render}: sprites in one GL_POINTS draw (one vertex per star, shaded as a sphere's disk
+ * in star_sprite.frag), the remaining stars with a single per-instance VBO attached to the sphere
+ * VAO. Spheres come in several detail levels packed into one mesh; each star gets the coarsest
+ * level that looks smooth at its projected radius.
+ *
+ * By default the partially transparent star rims are composited with weighted blended
+ * order-independent transparency ({@link TransparencyBuffer}), so stars can be added in any
+ * order; instances are grouped by detail level with a counting sort at render time, and the
+ * opaque cores of close stars are laid down in a depth prepass. Sorted alpha blending remains as
+ * the exact fallback: stars are then added far-to-near, the level is only ever raised along the
+ * list so every level is one contiguous run of instances, and sprites and spheres are drawn in
+ * list order, switching batches wherever the list switches between them, so the whole draw stays
+ * back to front.
+ *
+ * The star data itself (position, base radius, color, magnitude) stays on the GPU in a
+ * {@link StarDataBuffer}, uploaded once per catalog; sprites and instances are just star ids
+ * the shaders fetch it by, 4 bytes per visible star and frame. The distance-dependent sizing is
+ * done by the vertex shaders. {@link #renderedScale} mirrors it on the CPU for the sprite and
+ * detail level decisions.
+ */
+public class StarRenderer {
+
+    // Per-instance (and per-sprite) data: the star id into the StarDataBuffer
+    private static final int INSTANCE_STRIDE = Integer.BYTES;
+    private static final int INITIAL_CAPACITY = 4096; // Instances
+
+    // Star sizing, kept in sync with starScale() in star_sphere.vert and star_sprite.vert
+    static final float KM_TO_RENDER_RADIUS = 1e-7f;
+    private static final double AMPLIFY_DISTANCE = 100.0; // Closer stars are drawn up to 3x larger
+    private static final float MIN_FAR_SCALE = 0.0005f;   // Smallest radius of farther stars
+
+    // Stars closer than this (ly) keep depth writes for their opaque core
+    private static final double OPAQUE_CORE_DISTANCE = 5.0;
+
+    // blendMode uniform of the star fragment shaders
+    private static final int BLEND_SORTED = 0;
+    private static final int BLEND_WEIGHTED = 1;
+    private static final int BLEND_OPAQUE_CORE = 2; // Depth prepass, spheres only
+
+    // Stars projecting to a smaller diameter than this (pixels) are drawn as point sprites
+    private static final float SPRITE_MAX_PIXELS = 4.0f;
+    private static final float MIN_SPRITE_PIXELS = 1.0f;
+
+    // Octree nodes spanning fewer pixels than this are drawn as one aggregate sprite
+    private static final float AGGREGATE_MAX_PIXELS = 1.0f;
+
+    // Sphere detail levels (bands per axis) and the bands needed per pixel of projected radius,
+    // which keeps silhouette edges around 4 pixels long
+    private static final int[] LOD_BANDS = {4, 8, 16, 32, 64};
+    private static final float LOD_BANDS_PER_PIXEL = 1.6f;
+
+    private final SphereMesh sphereMesh;
+    private final int sphereVaoId;
+    private final int sphereVboId;
+    private final int sphereNboId;
+    private final int sphereEboId;
+    private final int instanceVboId;
+    private final ShaderProgram starSphereShader;
+    private final int spriteVaoId;
+    private final int spriteVboId;
+    private final ShaderProgram starSpriteShader;
+    private final StarDataBuffer starData;
+    private final TransparencyBuffer transparency;
+    private final ShaderProgram.Uniform sphereBlendMode;
+    private final ShaderProgram.Uniform spriteBlendMode;
+    private StarCatalog catalog; // Catalog of the current frame, the one on the GPU
+    private boolean orderIndependent = true;
+
+    private IntBuffer instanceData;
+    private int instanceCapacity;
+    private int instanceCount;
+    private int firstOpaqueInstance = -1; // Index of the first instance that writes depth
+    private int gpuCapacity; // Instances currently allocated in instanceVboId
+
+    // Order-independent mode: per-instance group (near * LOD_BANDS.length + level), grouped at render
+    private int[] instanceGroups;
+    private int[] groupedIds;
+    private final int[] groupStart = new int[LOD_BANDS.length * 2 + 1];
+
+    // Contiguous instance runs sharing a sphere level; one per level, or per level and
+    // near/far half once grouped
+    private final int[] runStart = new int[LOD_BANDS.length * 2];
+    private final int[] runLevel = new int[LOD_BANDS.length * 2];
+    private int runCount;
+
+    private IntBuffer spriteData;
+    private int spriteCapacity;
+    private int spriteCount;
+    private int spriteGpuCapacity; // Sprites currently allocated in spriteVboId
+
+    // Sorted mode: runs of consecutive sprites, each starting at a sprite index and following the
+    // given number of instances
+    private int[] spriteRunStart = new int[64];
+    private int[] spriteRunInstance = new int[64];
+    private int spriteRunCount;
+
+    private float pixelsPerRadiusAtUnitDistance; // Projected pixel radius of a radius-1 sphere 1 ly away
+
+    public StarRenderer() throws Exception {
+        starSphereShader = new ShaderProgram(
+            "shaders/star_sphere.vert",
+            "shaders/star_sphere.frag"
+        );
+
+        sphereMesh = SphereMesh.withLevels(LOD_BANDS);
+
+        // Create VAO
+        sphereVaoId = GL30.glGenVertexArrays();
+        GL30.glBindVertexArray(sphereVaoId);
+        // Positions VBO
+        sphereVboId = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, sphereVboId);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, sphereMesh.positions, GL15.GL_STATIC_DRAW);
+        GL20.glVertexAttribPointer(0, 3, GL11.GL_FLOAT, false, 0, 0);
+        GL20.glEnableVertexAttribArray(0);
+        // Normals VBO
+        sphereNboId = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, sphereNboId);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, sphereMesh.normals, GL15.GL_STATIC_DRAW);
+        GL20.glVertexAttribPointer(1, 3, GL11.GL_FLOAT, false, 0, 0);
+        GL20.glEnableVertexAttribArray(1);
+        // Per-instance star ids (filled every frame)
+        instanceVboId = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, instanceVboId);
+        bindInstanceAttributes(0);
+        GL20.glEnableVertexAttribArray(2);
+        GL33.glVertexAttribDivisor(2, 1);
+        // EBO (indices)
+        sphereEboId = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, sphereEboId);
+        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, sphereMesh.indices, GL15.GL_STATIC_DRAW);
+        // Unbind
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL30.glBindVertexArray(0);
+
+        instanceCapacity = INITIAL_CAPACITY;
+        instanceData = MemoryUtil.memAllocInt(instanceCapacity);
+        instanceGroups = new int[instanceCapacity];
+        groupedIds = new int[instanceCapacity];
+
+        // Sprite path: one point per star, attributes read per vertex
+        starSpriteShader = new ShaderProgram(
+            "shaders/star_sprite.vert",
+            "shaders/star_sprite.frag"
+        );
+        starSpriteShader.use();
+        starSpriteShader.setFloat("minSpriteSize", MIN_SPRITE_PIXELS);
+        starSpriteShader.setInt(StarDataBuffer.SAMPLER_NAME, StarDataBuffer.TEXTURE_UNIT);
+        starSpriteShader.unuse();
+        spriteVaoId = GL30.glGenVertexArrays();
+        GL30.glBindVertexArray(spriteVaoId);
+        spriteVboId = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, spriteVboId);
+        GL30.glVertexAttribIPointer(0, 1, GL11.GL_INT, INSTANCE_STRIDE, 0);
+        GL20.glEnableVertexAttribArray(0);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL30.glBindVertexArray(0);
+
+        spriteCapacity = INITIAL_CAPACITY;
+        spriteData = MemoryUtil.memAllocInt(spriteCapacity);
+
+        starSphereShader.use();
+        starSphereShader.setInt(StarDataBuffer.SAMPLER_NAME, StarDataBuffer.TEXTURE_UNIT);
+        starSphereShader.unuse();
+        sphereBlendMode = starSphereShader.uniform("blendMode");
+        spriteBlendMode = starSpriteShader.uniform("blendMode");
+        starData = new StarDataBuffer();
+        transparency = new TransparencyBuffer();
+    }
+
+    /**
+     * Chooses weighted blended transparency (stars in any order) or sorted alpha blending
+     * (stars added far-to-near) for the following frames.
+     */
+    public void setOrderIndependent(boolean orderIndependent) {
+        this.orderIndependent = orderIndependent;
+    }
+
+    public boolean isOrderIndependent() {
+        return orderIndependent;
+    }
+
+    /**
+     * Clears the instance and sprite lists for a new frame of stars from catalog, uploading the
+     * catalog and its octree aggregates first if they changed. The projection and window height
+     * decide which stars are small enough on screen to become sprites.
+     */
+    public void begin(StarCatalog catalog, StarOctree index, Matrix4f projection, int windowHeight) {
+        starData.upload(catalog, index);
+        this.catalog = catalog;
+        instanceData.clear();
+        instanceCount = 0;
+        firstOpaqueInstance = -1;
+        runCount = 0;
+        spriteData.clear();
+        spriteCount = 0;
+        spriteRunCount = 0;
+        // m11 is cot(fovY / 2); half the window height spans that many units at distance 1
+        pixelsPerRadiusAtUnitDistance = projection.m11() * windowHeight * 0.5f;
+    }
+
+    /**
+     * Appends a visible star of the frame's catalog. Unless the renderer is order independent,
+     * stars must be added from farthest to nearest.
+     */
+    public void addStar(int id, double distanceToStar) {
+        float baseRadius = catalog.radiiKm()[id] * KM_TO_RENDER_RADIUS;
+
+        // A few pixels of sphere look the same as a shaded point, at a fraction of the vertices
+        float scale = renderedScale(baseRadius, distanceToStar);
+        float pixelDiameter = (float) (2.0 * scale / distanceToStar) * pixelsPerRadiusAtUnitDistance;
+        if (pixelDiameter < SPRITE_MAX_PIXELS && distanceToStar >= OPAQUE_CORE_DISTANCE) {
+            addSprite(id);
+            return;
+        }
+
+        if (instanceCount == instanceCapacity) {
+            grow();
+        }
+
+        int level = lodLevel(pixelDiameter * 0.5f);
+        if (orderIndependent) {
+            // Grouped by level (and near cores last) in render()
+            boolean near = distanceToStar < OPAQUE_CORE_DISTANCE;
+            instanceGroups[instanceCount] = (near ? LOD_BANDS.length : 0) + level;
+            instanceData.put(id);
+            instanceCount++;
+            return;
+        }
+
+        // Never coarser than the star before, so each level stays one run
+        if (runCount > 0) {
+            level = Math.max(level, runLevel[runCount - 1]);
+        }
+        if (runCount == 0 || level != runLevel[runCount - 1]) {
+            runStart[runCount] = instanceCount;
+            runLevel[runCount] = level;
+            runCount++;
+        }
+
+        // The star's core is opaque close up, so those stars keep depth writes
+        if (firstOpaqueInstance < 0 && distanceToStar < OPAQUE_CORE_DISTANCE) {
+            firstOpaqueInstance = instanceCount;
+        }
+
+        instanceData.put(id);
+        instanceCount++;
+    }
+
+    /**
+     * Appends the aggregate of an octree node returned by the aggregating frustum query. It is
+     * always a sprite, since the node spans less than {@link #AGGREGATE_MAX_PIXELS}. In sorted
+     * mode aggregates go before the stars, as they stand for distant clusters.
+     */
+    public void addAggregate(int node) {
+        addSprite(starData.aggregateId(node));
+    }
+
+    // Appends a sprite; in sorted mode a sprite after a sphere starts a new sprite run
+    private void addSprite(int id) {
+        if (spriteCount == spriteCapacity) {
+            growSprites();
+        }
+        if (!orderIndependent && (spriteRunCount == 0 || spriteRunInstance[spriteRunCount - 1] != instanceCount)) {
+            if (spriteRunCount == spriteRunStart.length) {
+                spriteRunStart = Arrays.copyOf(spriteRunStart, spriteRunCount * 2);
+                spriteRunInstance = Arrays.copyOf(spriteRunInstance, spriteRunCount * 2);
+            }
+            spriteRunStart[spriteRunCount] = spriteCount;
+            spriteRunInstance[spriteRunCount] = instanceCount;
+            spriteRunCount++;
+        }
+        spriteData.put(id);
+        spriteCount++;
+    }
+
+    /** Largest angle (radians) an octree node may cover to be drawn as one aggregate. */
+    public static double aggregateMaxAngle(float pixelsPerRadian) {
+        return AGGREGATE_MAX_PIXELS / pixelsPerRadian;
+    }
+
+    /**
+     * Radius a star with this base radius is drawn with at this distance (ly). The vertex
+     * shaders apply the same rule; closer stars are amplified, farther ones get a minimum size.
+     */
+    static float renderedScale(float baseRadius, double distanceToStar) {
+        if (distanceToStar < AMPLIFY_DISTANCE) {
+            float distanceFactor = (float)(1.0 - Math.min(distanceToStar / AMPLIFY_DISTANCE, 0.99));
+            return baseRadius * (1.0f + distanceFactor * 2.0f);
+        }
+        return Math.max(baseRadius, MIN_FAR_SCALE);
+    }
+
+    // Coarsest sphere level with enough bands for the projected radius (pixels)
+    private static int lodLevel(float pixelRadius) {
+        float bands = pixelRadius * LOD_BANDS_PER_PIXEL;
+        for (int level = 0; level < LOD_BANDS.length - 1; level++) {
+            if (LOD_BANDS[level] >= bands) return level;
+        }
+        return LOD_BANDS.length - 1;
+    }
+
+    /**
+     * Largest scale renderedScale() can give a star of this radius, at any distance.
+     * Used as the star's bounding sphere radius for culling.
+     */
+    public static float maxRenderedScale(float radiusKm) {
+        float baseRadius = radiusKm * KM_TO_RENDER_RADIUS;
+        // Close stars are amplified by up to 3x, far ones clamped to the minimum size
+        return Math.max(baseRadius * 3.0f, MIN_FAR_SCALE);
+    }
+
+    /**
+     * Uploads the collected stars and draws them, the sprites in one call (one per sprite run when
+     * sorted) and the spheres with one instanced call per detail level run and depth-write state.
+     * Camera and screen state come from the {@link FrameUniforms} buffer; the window size sizes
+     * the transparency targets.
+     */
+    public void render(int windowWidth, int windowHeight) {
+        if (instanceCount == 0 && spriteCount == 0) return;
+        starData.bind();
+        GL11.glEnable(GL11.GL_DEPTH_TEST); // Ensure depth testing is on
+        if (orderIndependent) {
+            groupInstances();
+            renderWeighted(windowWidth, windowHeight);
+        } else {
+            renderSorted();
+        }
+    }
+
+    // Back to front with standard alpha blending, alternating between the sprite and sphere
+    // batches along the list. Sprites are farther than every opaque sphere core, so every sprite
+    // run comes before depth writes are turned on.
+    private void renderSorted() {
+        GL11.glEnable(GL11.GL_BLEND);
+        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        GL11.glDepthMask(false);
+        GL11.glEnable(GL32.GL_PROGRAM_POINT_SIZE);
+        uploadSprites();
+        starSpriteShader.use();
+        spriteBlendMode.set(BLEND_SORTED);
+        starSphereShader.use();
+        sphereBlendMode.set(BLEND_SORTED);
+        uploadInstances();
+
+        // Far stars only contribute glow, so they don't write depth
+        int glowCount = firstOpaqueInstance < 0 ? instanceCount : firstOpaqueInstance;
+        int drawn = 0;
+        for (int run = 0; run < spriteRunCount; run++) {
+            drawSortedSpheres(drawn, spriteRunInstance[run]);
+            drawn = spriteRunInstance[run];
+            int end = run + 1 < spriteRunCount ? spriteRunStart[run + 1] : spriteCount;
+            starSpriteShader.use();
+            GL30.glBindVertexArray(spriteVaoId);
+            GL11.glDrawArrays(GL11.GL_POINTS, spriteRunStart[run], end - spriteRunStart[run]);
+        }
+        drawSortedSpheres(drawn, glowCount);
+
+        // Close stars keep depth writing enabled for their opaque core
+        GL11.glDepthMask(true);
+        drawSortedSpheres(glowCount, instanceCount);
+
+        finishInstances();
+        GL11.glDisable(GL32.GL_PROGRAM_POINT_SIZE);
+        starSphereShader.unuse();
+    }
+
+    // Draws instances [from, to) of the sorted path, switching back from the sprites if needed
+    private void drawSortedSpheres(int from, int to) {
+        if (from >= to) return;
+        starSphereShader.use();
+        GL30.glBindVertexArray(sphereVaoId);
+        drawInstances(from, to - from);
+    }
+
+    // Everything accumulated in one pass, in any order, after the near cores have laid down depth
+    private void renderWeighted(int windowWidth, int windowHeight) {
+        transparency.begin(windowWidth, windowHeight);
+
+        starSphereShader.use();
+        uploadInstances();
+        int nearStart = firstOpaqueInstance < 0 ? instanceCount : firstOpaqueInstance;
+        if (nearStart < instanceCount) {
+            // Depth prepass: the opaque cores of close stars hide what lies behind them
+            sphereBlendMode.set(BLEND_OPAQUE_CORE);
+            GL11.glDisable(GL11.GL_BLEND);
+            GL11.glColorMask(false, false, false, false);
+            drawInstances(nearStart, instanceCount - nearStart);
+            GL11.glColorMask(true, true, true, true);
+            GL11.glDepthFunc(GL11.GL_LEQUAL); // The cores themselves must still pass
+        }
+
+        transparency.beginAccumulation();
+        sphereBlendMode.set(BLEND_WEIGHTED);
+        drawInstances(0, instanceCount);
+        finishInstances();
+        starSphereShader.unuse();
+
+        drawSprites(BLEND_WEIGHTED);
+        GL11.glDepthFunc(GL11.GL_LESS);
+        transparency.composite();
+    }
+
+    /**
+     * Orders the instances by group with a counting sort: far stars by level, then near stars by
+     * level. Fills the runs and marks where the near stars start.
+     */
+    private void groupInstances() {
+        Arrays.fill(groupStart, 0);
+        for (int i = 0; i < instanceCount; i++) {
+            groupStart[instanceGroups[i] + 1]++;
+        }
+        for (int g = 1; g < groupStart.length; g++) {
+            groupStart[g] += groupStart[g - 1];
+        }
+        runCount = 0;
+        for (int g = 0; g < groupStart.length - 1; g++) {
+            if (groupStart[g + 1] > groupStart[g]) {
+                runStart[runCount] = groupStart[g];
+                runLevel[runCount] = g % LOD_BANDS.length;
+                runCount++;
+            }
+        }
+        int nearStart = groupStart[LOD_BANDS.length];
+        firstOpaqueInstance = nearStart < instanceCount ? nearStart : -1;
+
+        for (int i = 0; i < instanceCount; i++) {
+            groupedIds[groupStart[instanceGroups[i]]++] = instanceData.get(i);
+        }
+        instanceData.clear();
+        instanceData.put(groupedIds, 0, instanceCount);
+    }
+
+    // Binds the sphere VAO and uploads this frame's instances
+    private void uploadInstances() {
+        GL30.glBindVertexArray(sphereVaoId);
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, sphereEboId);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, instanceVboId);
+        if (instanceCount == 0) return;
+        instanceData.flip();
+        if (instanceCount > gpuCapacity) {
+            gpuCapacity = instanceCapacity;
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, (long) gpuCapacity * INSTANCE_STRIDE, GL15.GL_STREAM_DRAW);
+        }
+        GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, 0, instanceData);
+    }
+
+    private void finishInstances() {
+        // Restore the attribute offsets for the next frame
+        bindInstanceAttributes(0);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL30.glBindVertexArray(0);
+    }
+
+    // Uploads and draws the sprites with the caller's blend and depth state
+    private void drawSprites(int blendMode) {
+        if (spriteCount == 0) return;
+        uploadSprites();
+        starSpriteShader.use();
+        spriteBlendMode.set(blendMode);
+        GL11.glEnable(GL32.GL_PROGRAM_POINT_SIZE);
+
+        GL30.glBindVertexArray(spriteVaoId);
+        GL11.glDrawArrays(GL11.GL_POINTS, 0, spriteCount);
+
+        GL30.glBindVertexArray(0);
+        GL11.glDisable(GL32.GL_PROGRAM_POINT_SIZE);
+        starSpriteShader.unuse();
+    }
+
+    // Uploads this frame's sprites into spriteVboId
+    private void uploadSprites() {
+        if (spriteCount == 0) return;
+        spriteData.flip();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, spriteVboId);
+        if (spriteCount > spriteGpuCapacity) {
+            spriteGpuCapacity = spriteCapacity;
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, (long) spriteGpuCapacity * INSTANCE_STRIDE, GL15.GL_STREAM_DRAW);
+        }
+        GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, 0, spriteData);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public int getSpriteCount() {
+        return spriteCount;
+    }
+
+    // Draws instances [first, first + count), one call per sphere level run they span
+    private void drawInstances(int first, int count) {
+        if (count <= 0) return;
+        int end = first + count;
+        for (int run = 0; run < runCount; run++) {
+            int from = Math.max(first, runStart[run]);
+            int to = Math.min(end, run + 1 < runCount ? runStart[run + 1] : instanceCount);
+            if (from >= to) continue;
+            int level = runLevel[run];
+            // GL 3.3 has no base-instance draw, so offset the instance attributes instead
+            bindInstanceAttributes((long) from * INSTANCE_STRIDE);
+            GL31.glDrawElementsInstanced(GL11.GL_TRIANGLES, sphereMesh.levelIndexCount[level], GL11.GL_UNSIGNED_INT,
+                                         (long) sphereMesh.levelIndexOffset[level] * Integer.BYTES, to - from);
+        }
+    }
+
+    // Expects instanceVboId to be bound to GL_ARRAY_BUFFER
+    private void bindInstanceAttributes(long byteOffset) {
+        GL30.glVertexAttribIPointer(2, 1, GL11.GL_INT, INSTANCE_STRIDE, byteOffset);
+    }
+
+    private void grow() {
+        instanceCapacity *= 2;
+        IntBuffer grown = MemoryUtil.memAllocInt(instanceCapacity);
+        instanceData.flip();
+        grown.put(instanceData);
+        MemoryUtil.memFree(instanceData);
+        instanceData = grown;
+        instanceGroups = Arrays.copyOf(instanceGroups, instanceCapacity);
+        groupedIds = new int[instanceCapacity];
+    }
+
+    private void growSprites() {
+        spriteCapacity *= 2;
+        IntBuffer grown = MemoryUtil.memAllocInt(spriteCapacity);
+        spriteData.flip();
+        grown.put(spriteData);
+        MemoryUtil.memFree(spriteData);
+        spriteData = grown;
+    }
+
+    public void cleanup() {
+        if (starSphereShader != null) starSphereShader.cleanup();
+        if (starSpriteShader != null) starSpriteShader.cleanup();
+        if (starData != null) starData.cleanup();
+        if (transparency != null) transparency.cleanup();
+        if (spriteVboId != 0) GL15.glDeleteBuffers(spriteVboId);
+        if (spriteVaoId != 0) GL30.glDeleteVertexArrays(spriteVaoId);
+        if (sphereVboId != 0) GL15.glDeleteBuffers(sphereVboId);
+        if (sphereNboId != 0) GL15.glDeleteBuffers(sphereNboId);
+        if (sphereEboId != 0) GL15.glDeleteBuffers(sphereEboId);
+        if (instanceVboId != 0) GL15.glDeleteBuffers(instanceVboId);
+        if (sphereVaoId != 0) GL30.glDeleteVertexArrays(sphereVaoId);
+        if (instanceData != null) {
+            MemoryUtil.memFree(instanceData);
+            instanceData = null;
+        }
+        if (spriteData != null) {
+            MemoryUtil.memFree(spriteData);
+            spriteData = null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.universe;
+
+import org.joml.Vector3d;
+
+/**
+ * Where the render thread gets its stars from: a background loader that publishes immutable
+ * {@link StarStreamLoader.Snapshot}s, picked up with {@link #latest()} at the start of a frame.
+ */
+public interface StarSource {
+
+    void start();
+
+    /**
+     * The most recently published snapshot. Never null.
+     */
+    StarStreamLoader.Snapshot latest();
+
+    /**
+     * Set if loading failed; the last published snapshot stays valid.
+     */
+    Exception getFailure();
+
+    /**
+     * Tells the source where the camera is (ly) and how it is moving (ly/s), for sources that
+     * load stars around it. Called once per frame on the render thread.
+     */
+    default void updateViewpoint(Vector3d position, Vector3d velocity) {
+    }
+}
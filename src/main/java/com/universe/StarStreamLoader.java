@@ -0,0 +1,106 @@
+package com.universe;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Loads the star catalog on a background thread and hands it to the render thread in growing
+ * snapshots, so the window is interactive before the whole catalog is in.
+ * Each snapshot owns its catalog and octree; the render thread picks up the latest one with
+ * {@link #latest()} at the start of a frame. The final snapshot has overlapping stars removed
+ * and planets joined, and is marked complete.
+ */
+public class StarStreamLoader implements StarSource {
+
+    /**
+     * An immutable catalog state: the stars loaded so far and the octree built over them.
+     */
+    public static class Snapshot {
+        public final StarCatalog stars;
+        public final StarOctree index;
+        public final List<Planet> planets; // Empty until complete
+        public final boolean complete;
+
+        Snapshot(StarCatalog stars, List<Planet> planets, boolean complete) {
+            this.stars = stars;
+            this.index = buildIndex(stars);
+            this.planets = planets;
+            this.complete = complete;
+        }
+    }
+
+    private final String starsPath;
+    private final String planetsPath;
+    private final Consumer<StarCatalog> finisher;
+    private final AtomicReference<Snapshot> latest;
+    private volatile Exception failure;
+
+    /**
+     * @param finisher applied to the full catalog on the loader thread before the final
+     *                 snapshot is published (e.g. overlap removal)
+     */
+    public StarStreamLoader(String starsPath, String planetsPath, Consumer<StarCatalog> finisher) {
+        this.starsPath = starsPath;
+        this.planetsPath = planetsPath;
+        this.finisher = finisher;
+        this.latest = new AtomicReference<>(new Snapshot(new StarCatalog(16), Collections.emptyList(), false));
+    }
+
+    @Override
+    public void start() {
+        Thread thread = new Thread(this::load, "star-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The most recently published snapshot. Never null; empty until the first batch arrives.
+     */
+    @Override
+    public Snapshot latest() {
+        return latest.get();
+    }
+
+    /**
+     * Set if loading failed; the last published snapshot stays valid.
+     */
+    @Override
+    public Exception getFailure() {
+        return failure;
+    }
+
+    private void load() {
+        long startTime = System.nanoTime();
+        try {
+            StarCatalog stars = DataLoader.streamStarsFromFile(starsPath,
+                    batch -> latest.set(new Snapshot(batch, Collections.emptyList(), false)));
+            finisher.accept(stars);
+            List<Planet> planets = DataLoader.loadPlanetsFromFile(planetsPath, stars);
+            latest.set(new Snapshot(stars, planets, true));
+            System.out.printf("Loaded %d stars and %d planets in %.1f ms (streamed)%n",
+                              stars.size(), planets.size(), (System.nanoTime() - startTime) / 1e6);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading data: " + e.getMessage());
+            e.printStackTrace();
+            failure = e;
+        }
+    }
+
+    /**
+     * Builds the octree over a catalog, bounding each star by the largest size it can be drawn at.
+     */
+    static StarOctree buildIndex(StarCatalog stars) {
+        int count = stars.size();
+        float[] radiiKm = stars.radiiKm();
+        float[] bounds = new float[count];
+        for (int id = 0; id < count; id++) {
+            bounds[id] = StarRenderer.maxRenderedScale(radiiKm[id]);
+        }
+        StarOctree index = new StarOctree(stars.xs(), stars.ys(), stars.zs(), bounds, count);
+        index.buildAggregates(stars.colors(), stars.absoluteMagnitudes(), radiiKm);
+        return index;
+    }
+}
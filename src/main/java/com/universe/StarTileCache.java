@@ -0,0 +1,237 @@
+package com.universe;
+
+import org.joml.Vector3d;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams the stars around the camera from a {@link StarTileFile}, so catalogs much larger than
+ * the heap can be flown through.
+ *
+ * A background thread keeps the tiles within the load radius of the camera resident, nearest
+ * first, and publishes them as one snapshot whenever that set changes. Decoded tiles are kept in
+ * an LRU cache under a memory budget: tiles the camera left stay cached until the space is
+ * needed, and tiles within the load radius of where the camera will be in PREFETCH_SECONDS (from
+ * its velocity) are read ahead into the cache. The tiles of a snapshot are limited to half the
+ * budget, leaving the rest for those; the snapshot holds a copy of them on top of the cache.
+ */
+public class StarTileCache implements StarSource {
+
+    // Rough heap cost of a decoded star: the columns plus its name
+    private static final long BYTES_PER_STAR = 112;
+    private static final double PREFETCH_SECONDS = 4.0;
+    private static final long REFRESH_MILLIS = 100;
+    private static final long PUBLISH_MILLIS = 500; // While catching up, publish at least this often
+
+    private final Path path;
+    private final double loadRadius;
+    private final long budgetBytes;
+    private final AtomicReference<StarStreamLoader.Snapshot> latest;
+    private volatile Exception failure;
+
+    // Camera state from the render thread, guarded by this
+    private double cameraX, cameraY, cameraZ;
+    private double velocityX, velocityY, velocityZ;
+    private boolean hasViewpoint;
+
+    // Loader thread state. The map is access-ordered, so iteration starts at the least recently used tile.
+    private StarTileFile file;
+    private final Map<Integer, StarCatalog> cached = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    private boolean[] keep; // Tiles that must not be evicted in the current pass
+    private int[] published = new int[0]; // Sorted tiles of the latest snapshot
+    private int tilesRead;
+    private int tilesEvicted;
+
+    /**
+     * @param loadRadius  stars within this distance (ly) of the camera are kept loaded
+     * @param budgetBytes heap budget for decoded tiles
+     */
+    public StarTileCache(Path path, double loadRadius, long budgetBytes) {
+        this.path = path;
+        this.loadRadius = loadRadius;
+        this.budgetBytes = budgetBytes;
+        this.latest = new AtomicReference<>(
+                new StarStreamLoader.Snapshot(new StarCatalog(16), Collections.emptyList(), false));
+    }
+
+    @Override
+    public void start() {
+        Thread thread = new Thread(this::run, "star-tiles");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public StarStreamLoader.Snapshot latest() {
+        return latest.get();
+    }
+
+    @Override
+    public Exception getFailure() {
+        return failure;
+    }
+
+    @Override
+    public synchronized void updateViewpoint(Vector3d position, Vector3d velocity) {
+        cameraX = position.x; cameraY = position.y; cameraZ = position.z;
+        velocityX = velocity.x; velocityY = velocity.y; velocityZ = velocity.z;
+        hasViewpoint = true;
+    }
+
+    private void run() {
+        try (StarTileFile tiles = StarTileFile.open(path)) {
+            file = tiles;
+            keep = new boolean[tiles.tileCount()];
+            System.out.printf("Opened star tiles %s: %d stars in %d tiles, %.0f MB budget%n",
+                              path, tiles.starCount(), tiles.tileCount(), budgetBytes / (1024.0 * 1024.0));
+            double[] viewpoint = new double[6];
+            while (true) {
+                synchronized (this) {
+                    while (!hasViewpoint) {
+                        wait(REFRESH_MILLIS);
+                    }
+                    viewpoint[0] = cameraX; viewpoint[1] = cameraY; viewpoint[2] = cameraZ;
+                    viewpoint[3] = velocityX; viewpoint[4] = velocityY; viewpoint[5] = velocityZ;
+                }
+                refresh(viewpoint);
+                synchronized (this) {
+                    wait(REFRESH_MILLIS);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading star tiles: " + e.getMessage());
+            e.printStackTrace();
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // One pass: load the tiles around the camera, publish them if they changed, then prefetch
+    private void refresh(double[] viewpoint) throws IOException {
+        double x = viewpoint[0], y = viewpoint[1], z = viewpoint[2];
+        int[] wanted = tilesAround(x, y, z, budgetBytes / 2);
+        Arrays.fill(keep, false);
+        for (int tile : wanted) {
+            keep[tile] = true;
+        }
+
+        long lastPublish = System.nanoTime();
+        int readBefore = tilesRead;
+        for (int i = 0; i < wanted.length; i++) {
+            load(wanted[i]);
+            boolean due = (System.nanoTime() - lastPublish) / 1_000_000 >= PUBLISH_MILLIS;
+            if (due && tilesRead > readBefore && i + 1 < wanted.length) {
+                publish(Arrays.copyOf(wanted, i + 1), false);
+                lastPublish = System.nanoTime();
+            }
+        }
+        int[] sorted = wanted.clone();
+        Arrays.sort(sorted);
+        if (!Arrays.equals(sorted, published) || !latest.get().complete) {
+            publish(wanted, true);
+        }
+
+        // Read ahead where the camera is heading, without pushing out what it sees now
+        double lead = PREFETCH_SECONDS;
+        double px = x + viewpoint[3] * lead, py = y + viewpoint[4] * lead, pz = z + viewpoint[5] * lead;
+        if (px == x && py == y && pz == z) return;
+        int[] ahead = tilesAround(px, py, pz, budgetBytes - wantedBytes(wanted));
+        for (int tile : ahead) {
+            keep[tile] = true;
+        }
+        for (int tile : ahead) {
+            if (!load(tile)) break;
+        }
+    }
+
+    // Tiles within the load radius of a point, nearest first, as many as fit in the byte limit
+    private int[] tilesAround(double x, double y, double z, long maxBytes) {
+        double radius2 = loadRadius * loadRadius;
+        int tiles = file.tileCount();
+        long[] keys = new long[tiles];
+        int count = 0;
+        for (int tile = 0; tile < tiles; tile++) {
+            double dist2 = file.minDistanceSquared(tile, x, y, z);
+            if (dist2 > radius2) continue;
+            // Non-negative floats order the same as their bit patterns
+            keys[count++] = ((long) Float.floatToIntBits((float) dist2) << 32) | tile;
+        }
+        Arrays.sort(keys, 0, count);
+        int[] result = new int[count];
+        long bytes = 0;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int tile = (int) keys[i];
+            bytes += tileBytes(tile);
+            if (bytes > maxBytes) break;
+            result[kept++] = tile;
+        }
+        return Arrays.copyOf(result, kept);
+    }
+
+    private long tileBytes(int tile) {
+        return file.tileStarCount(tile) * BYTES_PER_STAR;
+    }
+
+    private long wantedBytes(int[] tiles) {
+        long bytes = 0;
+        for (int tile : tiles) {
+            bytes += tileBytes(tile);
+        }
+        return bytes;
+    }
+
+    /**
+     * Makes the tile resident, evicting least recently used tiles outside keep as needed.
+     * Returns false if it can't be made to fit.
+     */
+    private boolean load(int tile) throws IOException {
+        if (cached.get(tile) != null) return true; // Also marks it as recently used
+        long bytes = tileBytes(tile);
+        Iterator<Map.Entry<Integer, StarCatalog>> eldest = cached.entrySet().iterator();
+        while (cachedBytes + bytes > budgetBytes && eldest.hasNext()) {
+            Map.Entry<Integer, StarCatalog> entry = eldest.next();
+            if (keep[entry.getKey()]) continue;
+            cachedBytes -= tileBytes(entry.getKey());
+            eldest.remove();
+            tilesEvicted++;
+        }
+        if (cachedBytes + bytes > budgetBytes) return false;
+        cached.put(tile, file.readTile(tile));
+        cachedBytes += bytes;
+        tilesRead++;
+        return true;
+    }
+
+    // Joins the given resident tiles, in tile order, into a new snapshot
+    private void publish(int[] tiles, boolean complete) {
+        long startTime = System.nanoTime();
+        int[] sorted = tiles.clone();
+        Arrays.sort(sorted);
+        int total = 0;
+        for (int tile : sorted) {
+            total += file.tileStarCount(tile);
+        }
+        StarCatalog stars = new StarCatalog(total);
+        for (int tile : sorted) {
+            StarCatalog tileStars = cached.get(tile);
+            if (tileStars != null) {
+                stars.addAll(tileStars);
+            }
+        }
+        latest.set(new StarStreamLoader.Snapshot(stars, Collections.emptyList(), complete));
+        published = sorted;
+        System.out.printf("Published %d stars from %d tiles in %.1f ms (%d read, %d evicted, %.0f MB cached)%n",
+                          stars.size(), sorted.length, (System.nanoTime() - startTime) / 1e6,
+                          tilesRead, tilesEvicted, cachedBytes / (1024.0 * 1024.0));
+    }
+}
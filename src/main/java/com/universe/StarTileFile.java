@@ -0,0 +1,442 @@
+package com.universe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Star catalog split into spatial tiles on disk, for catalogs larger than the heap; the
+ * {@link StarTileCache} keeps the tiles around the camera loaded.
+ *
+ * Tiles are the leaves of an octree over star positions, split until no tile holds more than a
+ * given number of stars. Each tile is a self-contained block laid out like the binary star cache
+ * ({@link StarCatalogCache}): the primitive columns back to back, then the tile's spectral
+ * classes, star names and name keys, so a tile decodes into a {@link StarCatalog} of its own.
+ * Layout (little-endian): a fixed header, the tile blocks (8-byte aligned), then the tile
+ * directory with each tile's bounds, star count and byte range. Opening a file only reads the
+ * header and the directory; tiles are memory-mapped one at a time when read.
+ */
+public class StarTileFile implements Closeable {
+
+    public static final int DEFAULT_MAX_TILE_STARS = 16384;
+
+    private static final int MAGIC = 0x454C4954; // "TILE" in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int DIRECTORY_ENTRY_BYTES = 72;
+    private static final int MAX_SPLIT_DEPTH = 20;
+
+    private final FileChannel channel;
+    private final long starCount;
+    private final int tileCount;
+
+    // Tile directory: tight bounds of each tile's stars and where its block is
+    private final double[] minX, minY, minZ, maxX, maxY, maxZ;
+    private final long[] blockOffset;
+    private final int[] blockBytes;
+    private final int[] tileStars;
+
+    private StarTileFile(FileChannel channel, long starCount, int tileCount, ByteBuffer directory) {
+        this.channel = channel;
+        this.starCount = starCount;
+        this.tileCount = tileCount;
+        minX = new double[tileCount]; minY = new double[tileCount]; minZ = new double[tileCount];
+        maxX = new double[tileCount]; maxY = new double[tileCount]; maxZ = new double[tileCount];
+        blockOffset = new long[tileCount];
+        blockBytes = new int[tileCount];
+        tileStars = new int[tileCount];
+        for (int t = 0; t < tileCount; t++) {
+            minX[t] = directory.getDouble(); minY[t] = directory.getDouble(); minZ[t] = directory.getDouble();
+            maxX[t] = directory.getDouble(); maxY[t] = directory.getDouble(); maxZ[t] = directory.getDouble();
+            blockOffset[t] = directory.getLong();
+            blockBytes[t] = (int) directory.getLong();
+            tileStars[t] = directory.getInt();
+            directory.getInt(); // Padding
+        }
+    }
+
+    /**
+     * Opens a tile file and reads its directory. The file stays open until {@link #close()}.
+     */
+    public static StarTileFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            StarCatalogCache.readFully(channel, header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a star tile file: " + path);
+            }
+            int tiles = header.getInt();
+            header.getInt(); // Reserved
+            long stars = header.getLong();
+            long directoryOffset = header.getLong();
+
+            ByteBuffer directory = ByteBuffer.allocate(tiles * DIRECTORY_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            StarCatalogCache.readFully(channel, directory, directoryOffset);
+            if (directory.hasRemaining()) {
+                throw new IOException("Star tile file is truncated: " + path);
+            }
+            directory.flip();
+            return new StarTileFile(channel, stars, tiles, directory);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long starCount() {
+        return starCount;
+    }
+
+    public int tileCount() {
+        return tileCount;
+    }
+
+    public int tileStarCount(int tile) {
+        return tileStars[tile];
+    }
+
+    // Squared distance from a point to the tile's bounds, 0 inside
+    public double minDistanceSquared(int tile, double px, double py, double pz) {
+        double dx = Math.max(0.0, Math.max(minX[tile] - px, px - maxX[tile]));
+        double dy = Math.max(0.0, Math.max(minY[tile] - py, py - maxY[tile]));
+        double dz = Math.max(0.0, Math.max(minZ[tile] - pz, pz - maxZ[tile]));
+        return dx*dx + dy*dy + dz*dz;
+    }
+
+    /**
+     * Reads one tile into a new catalog. Star ids are local to the tile, in file order.
+     * Safe to call from one thread at a time.
+     */
+    public StarCatalog readTile(int tile) throws IOException {
+        MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY, blockOffset[tile], blockBytes[tile]);
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        int n = b.getInt();
+        int keyCount = b.getInt();
+
+        double[] x = readDoubles(b, n);
+        double[] y = readDoubles(b, n);
+        double[] z = readDoubles(b, n);
+        float[] radiusKm = readFloats(b, n);
+        float[] rgb = readFloats(b, n * 3);
+        float[] absMag = readFloats(b, n);
+        float[] distancePc = readFloats(b, n);
+        float[] massSolar = readFloats(b, n);
+        int[] hipId = StarCatalogCache.readInts(b, n);
+        byte[] flags = new byte[n];
+        b.get(flags);
+        StarCatalogCache.align(b);
+
+        int spectralCount = b.getInt();
+        SpectralClass[] spectralTable = new SpectralClass[spectralCount];
+        for (int i = 0; i < spectralCount; i++) {
+            spectralTable[i] = SpectralClass.of(StarCatalogCache.readString(b));
+        }
+        StarCatalogCache.align(b);
+        int[] spectralIndex = StarCatalogCache.readInts(b, n);
+        SpectralClass[] spectral = new SpectralClass[n];
+        for (int id = 0; id < n; id++) {
+            spectral[id] = spectralTable[spectralIndex[id]];
+        }
+
+        int[] nameOffsets = StarCatalogCache.readInts(b, n + 1);
+        byte[] nameBlob = new byte[nameOffsets[n]];
+        b.get(nameBlob);
+        StarCatalogCache.align(b);
+
+        int[] keyOffsets = StarCatalogCache.readInts(b, keyCount + 1);
+        int[] keyHashes = StarCatalogCache.readInts(b, keyCount);
+        int[] keyIds = StarCatalogCache.readInts(b, keyCount);
+        byte[] keyBlob = new byte[keyOffsets[keyCount]];
+        b.get(keyBlob);
+        NameIndex nameIndex = new NameIndex(keyCount, keyBlob, Arrays.copyOf(keyOffsets, keyCount),
+                                            StarCatalogCache.lengths(keyOffsets, keyCount), keyHashes, keyIds);
+
+        return new StarCatalog(n, x, y, z, radiusKm, rgb, absMag, hipId, flags,
+                               nameBlob, Arrays.copyOf(nameOffsets, n), StarCatalogCache.lengths(nameOffsets, n),
+                               spectral, distancePc, massSolar, nameIndex);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the catalog as a tile file of at most maxTileStars stars per tile. The file is
+     * written under a temporary name and moved into place. The catalog itself has to fit in
+     * memory; only reading is out of core.
+     */
+    public static void write(Path path, StarCatalog catalog, int maxTileStars) throws IOException {
+        int total = catalog.size();
+        int[] order = new int[total];
+        for (int i = 0; i < total; i++) order[i] = i;
+        List<int[]> ranges = new ArrayList<>();
+        split(catalog, order, 0, total, new int[total], Math.max(1, maxTileStars), 0, ranges);
+        StarCatalog tiled = catalog.reordered(order);
+        int tiles = ranges.size();
+        int[] tileStart = new int[tiles + 1];
+        for (int t = 0; t < tiles; t++) {
+            tileStart[t] = ranges.get(t)[0];
+        }
+        tileStart[tiles] = total;
+
+        // Name keys grouped by the tile of the star they point at (counting sort)
+        NameIndex names = tiled.nameIndex();
+        int keyCount = names.size();
+        int[] keyTile = new int[keyCount];
+        int[] keysBefore = new int[tiles + 1];
+        for (int i = 0; i < keyCount; i++) {
+            int tile = Arrays.binarySearch(tileStart, 0, tiles, names.id(i));
+            keyTile[i] = tile >= 0 ? tile : -tile - 2;
+            keysBefore[keyTile[i] + 1]++;
+        }
+        for (int t = 0; t < tiles; t++) {
+            keysBefore[t + 1] += keysBefore[t];
+        }
+        int[] keyOrder = new int[keyCount];
+        int[] cursor = Arrays.copyOf(keysBefore, tiles);
+        for (int i = 0; i < keyCount; i++) {
+            keyOrder[cursor[keyTile[i]]++] = i;
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer directory = ByteBuffer.allocate(tiles * DIRECTORY_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long position = HEADER_BYTES;
+            double[] xs = tiled.xs(), ys = tiled.ys(), zs = tiled.zs();
+            for (int t = 0; t < tiles; t++) {
+                int start = tileStart[t], end = tileStart[t + 1];
+                ByteBuffer block = encodeTile(tiled, start, end, names, keyOrder, keysBefore[t], keysBefore[t + 1]);
+                int bytes = block.remaining();
+                writeFully(channel, block, position);
+
+                double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+                double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+                for (int id = start; id < end; id++) {
+                    x0 = Math.min(x0, xs[id]); x1 = Math.max(x1, xs[id]);
+                    y0 = Math.min(y0, ys[id]); y1 = Math.max(y1, ys[id]);
+                    z0 = Math.min(z0, zs[id]); z1 = Math.max(z1, zs[id]);
+                }
+                directory.putDouble(x0).putDouble(y0).putDouble(z0);
+                directory.putDouble(x1).putDouble(y1).putDouble(z1);
+                directory.putLong(position).putLong(bytes);
+                directory.putInt(end - start).putInt(0);
+                position += bytes;
+            }
+            directory.flip();
+            writeFully(channel, directory, position);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(tiles).putInt(0);
+            header.putLong(total).putLong(position);
+            header.flip();
+            writeFully(channel, header, 0);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Splits order[start..end) around the center of its bounds until every range is small enough
+    private static void split(StarCatalog catalog, int[] order, int start, int end, int[] scratch,
+                              int maxTileStars, int depth, List<int[]> ranges) {
+        if (end == start) return;
+        double[] xs = catalog.xs(), ys = catalog.ys(), zs = catalog.zs();
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            int s = order[i];
+            x0 = Math.min(x0, xs[s]); x1 = Math.max(x1, xs[s]);
+            y0 = Math.min(y0, ys[s]); y1 = Math.max(y1, ys[s]);
+            z0 = Math.min(z0, zs[s]); z1 = Math.max(z1, zs[s]);
+        }
+        if (end - start <= maxTileStars || depth >= MAX_SPLIT_DEPTH || (x0 == x1 && y0 == y1 && z0 == z1)) {
+            ranges.add(new int[] {start, end});
+            return;
+        }
+
+        double cx = (x0 + x1) * 0.5, cy = (y0 + y1) * 0.5, cz = (z0 + z1) * 0.5;
+        int[] octantStart = new int[9];
+        for (int i = start; i < end; i++) {
+            octantStart[octantOf(order[i], xs, ys, zs, cx, cy, cz) + 1]++;
+        }
+        octantStart[0] = start;
+        for (int o = 0; o < 8; o++) {
+            octantStart[o + 1] += octantStart[o];
+        }
+        int[] cursor = Arrays.copyOf(octantStart, 8);
+        for (int i = start; i < end; i++) {
+            int s = order[i];
+            scratch[cursor[octantOf(s, xs, ys, zs, cx, cy, cz)]++] = s;
+        }
+        System.arraycopy(scratch, start, order, start, end - start);
+        for (int o = 0; o < 8; o++) {
+            split(catalog, order, octantStart[o], octantStart[o + 1], scratch, maxTileStars, depth + 1, ranges);
+        }
+    }
+
+    private static int octantOf(int s, double[] xs, double[] ys, double[] zs, double cx, double cy, double cz) {
+        return (xs[s] >= cx ? 1 : 0) | (ys[s] >= cy ? 2 : 0) | (zs[s] >= cz ? 4 : 0);
+    }
+
+    // One tile's block: stars [start, end) of the catalog and the keys keyOrder[keyFrom..keyTo)
+    private static ByteBuffer encodeTile(StarCatalog catalog, int start, int end, NameIndex names,
+                                         int[] keyOrder, int keyFrom, int keyTo) {
+        int n = end - start;
+        int keys = keyTo - keyFrom;
+
+        Map<SpectralClass, Integer> spectralIds = new HashMap<>();
+        List<byte[]> spectralTable = new ArrayList<>();
+        int[] spectralIndex = new int[n];
+        long spectralBytes = 4;
+        for (int i = 0; i < n; i++) {
+            SpectralClass spectral = catalog.getSpectralClass(start + i);
+            Integer index = spectralIds.get(spectral);
+            if (index == null) {
+                index = spectralTable.size();
+                spectralIds.put(spectral, index);
+                byte[] bytes = spectral.getText().getBytes(StandardCharsets.UTF_8);
+                spectralTable.add(bytes);
+                spectralBytes += 2 + bytes.length;
+            }
+            spectralIndex[i] = index;
+        }
+        byte[][] nameBytes = new byte[n][];
+        int[] nameOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            nameBytes[i] = catalog.getName(start + i).getBytes(StandardCharsets.UTF_8);
+            nameOffsets[i + 1] = nameOffsets[i] + nameBytes[i].length;
+        }
+        byte[][] keyBytes = new byte[keys][];
+        int[] keyOffsets = new int[keys + 1];
+        int[] keyHashes = new int[keys];
+        int[] keyIds = new int[keys];
+        for (int k = 0; k < keys; k++) {
+            int key = keyOrder[keyFrom + k];
+            keyBytes[k] = names.key(key).getBytes(StandardCharsets.UTF_8);
+            keyOffsets[k + 1] = keyOffsets[k] + keyBytes[k].length;
+            keyHashes[k] = names.hash(key);
+            keyIds[k] = names.id(key) - start;
+        }
+
+        long total = 8
+                   + 3 * StarCatalogCache.padded(n * 8L)
+                   + StarCatalogCache.padded(n * 4L) + StarCatalogCache.padded(n * 12L) + 3 * StarCatalogCache.padded(n * 4L)
+                   + StarCatalogCache.padded(n * 4L)
+                   + StarCatalogCache.padded(n)
+                   + StarCatalogCache.padded(spectralBytes) + StarCatalogCache.padded(n * 4L)
+                   + StarCatalogCache.padded((n + 1) * 4L) + StarCatalogCache.padded(nameOffsets[n])
+                   + StarCatalogCache.padded((keys + 1) * 4L) + 2 * StarCatalogCache.padded(keys * 4L)
+                   + StarCatalogCache.padded(keyOffsets[keys]);
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Star tile too large: " + total + " bytes");
+        }
+
+        ByteBuffer b = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(n).putInt(keys);
+        putDoubles(b, catalog.xs(), start, n);
+        putDoubles(b, catalog.ys(), start, n);
+        putDoubles(b, catalog.zs(), start, n);
+        putFloats(b, catalog.radiiKm(), start, n);
+        putFloats(b, catalog.colors(), start * 3, n * 3);
+        putFloats(b, catalog.absoluteMagnitudes(), start, n);
+        putFloats(b, catalog.distancesPc(), start, n);
+        putFloats(b, catalog.massesSolar(), start, n);
+        putInts(b, catalog.hipIds(), start, n);
+        b.put(catalog.flags(), start, n);
+        StarCatalogCache.align(b);
+
+        b.putInt(spectralTable.size());
+        for (byte[] bytes : spectralTable) {
+            StarCatalogCache.writeString(b, bytes);
+        }
+        StarCatalogCache.align(b);
+        putInts(b, spectralIndex, 0, n);
+
+        putInts(b, nameOffsets, 0, n + 1);
+        for (byte[] bytes : nameBytes) {
+            b.put(bytes);
+        }
+        StarCatalogCache.align(b);
+
+        putInts(b, keyOffsets, 0, keys + 1);
+        putInts(b, keyHashes, 0, keys);
+        putInts(b, keyIds, 0, keys);
+        for (byte[] bytes : keyBytes) {
+            b.put(bytes);
+        }
+        StarCatalogCache.align(b);
+        b.flip();
+        return b;
+    }
+
+    private static void putDoubles(ByteBuffer buffer, double[] values, int start, int count) {
+        buffer.asDoubleBuffer().put(values, start, count);
+        StarCatalogCache.skip(buffer, count * 8L);
+    }
+
+    private static void putFloats(ByteBuffer buffer, float[] values, int start, int count) {
+        buffer.asFloatBuffer().put(values, start, count);
+        StarCatalogCache.skip(buffer, count * 4L);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values, int start, int count) {
+        buffer.asIntBuffer().put(values, start, count);
+        StarCatalogCache.skip(buffer, count * 4L);
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        StarCatalogCache.skip(buffer, count * 8L);
+        return values;
+    }
+
+    private static float[] readFloats(ByteBuffer buffer, int count) {
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        StarCatalogCache.skip(buffer, count * 4L);
+        return values;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Converts a star CSV into a tile file:
+     * StarTileFile &lt;stars.csv&gt; &lt;output.tiles&gt; [maxTileStars]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: StarTileFile <stars.csv> <output.tiles> [maxTileStars]");
+            System.exit(1);
+        }
+        int maxTileStars = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_TILE_STARS;
+        StarCatalog stars = DataLoader.loadStarsFromFile(args[0]);
+        StarOverlapResolver.removeOverlaps(stars);
+
+        long startTime = System.nanoTime();
+        Path output = Paths.get(args[1]);
+        write(output, stars, maxTileStars);
+        System.out.printf("Wrote %d stars to %s (%.1f MB) in %.1f ms%n", stars.size(), output,
+                          Files.size(output) / (1024.0 * 1024.0), (System.nanoTime() - startTime) / 1e6);
+    }
+}
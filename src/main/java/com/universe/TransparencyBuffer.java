@@ -0,0 +1,144 @@
+package com.universe;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL14;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+
+/**
+ * Off-screen targets for weighted blended order-independent transparency, after McGuire and
+ * Bavoil, "Weighted Blended Order-Independent Transparency" (JCGT 2013).
+ *
+ * Transparent fragments are accumulated in any order with one blend function for both targets,
+ * glBlendFuncSeparate(ONE, ONE, ZERO, ONE_MINUS_SRC_ALPHA), which GL 3.3 can apply without
+ * per-target blend state:
+ *   accumulation (RGBA16F): rgb = sum of premultiplied color * weight, a = product of (1 - alpha)
+ *   weight       (R16F):    r   = sum of alpha * weight
+ * {@link #composite()} then blends the weighted average color over the default framebuffer
+ * with coverage 1 - product. The targets have their own depth buffer, so opaque geometry must
+ * be drawn between {@link #begin} and {@link #composite}.
+ */
+public class TransparencyBuffer {
+
+    private static final float[] CLEAR_ACCUMULATION = {0f, 0f, 0f, 1f};
+    private static final float[] CLEAR_WEIGHT = {0f, 0f, 0f, 0f};
+
+    private final ShaderProgram compositeShader;
+    private final int fullscreenVaoId; // Empty; the composite vertex shader needs no attributes
+    private final int fboId;
+    private int accumTextureId;
+    private int weightTextureId;
+    private int depthRenderbufferId;
+    private int width;
+    private int height;
+
+    public TransparencyBuffer() throws Exception {
+        compositeShader = new ShaderProgram(
+            "shaders/oit_composite.vert",
+            "shaders/oit_composite.frag"
+        );
+        compositeShader.use();
+        compositeShader.setInt("accumTexture", 0);
+        compositeShader.setInt("weightTexture", 1);
+        compositeShader.unuse();
+
+        fullscreenVaoId = GL30.glGenVertexArrays();
+        fboId = GL30.glGenFramebuffers();
+    }
+
+    /**
+     * Binds and clears the targets, reallocating them if the window size changed.
+     * Leaves depth writes enabled.
+     */
+    public void begin(int width, int height) {
+        if (width != this.width || height != this.height) {
+            allocate(width, height);
+        }
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fboId);
+        GL30.glClearBufferfv(GL11.GL_COLOR, 0, CLEAR_ACCUMULATION);
+        GL30.glClearBufferfv(GL11.GL_COLOR, 1, CLEAR_WEIGHT);
+        GL11.glDepthMask(true);
+        GL11.glClear(GL11.GL_DEPTH_BUFFER_BIT);
+    }
+
+    /** Sets the accumulation blend state for transparent draws. */
+    public void beginAccumulation() {
+        GL11.glEnable(GL11.GL_BLEND);
+        GL14.glBlendFuncSeparate(GL11.GL_ONE, GL11.GL_ONE, GL11.GL_ZERO, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        GL11.glDepthMask(false);
+    }
+
+    /**
+     * Blends the accumulated fragments over the default framebuffer and leaves it bound,
+     * with standard alpha blending and depth testing restored.
+     */
+    public void composite() {
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+        GL11.glDisable(GL11.GL_DEPTH_TEST);
+        GL11.glEnable(GL11.GL_BLEND);
+        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+
+        compositeShader.use();
+        GL13.glActiveTexture(GL13.GL_TEXTURE1);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, weightTextureId);
+        GL13.glActiveTexture(GL13.GL_TEXTURE0);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, accumTextureId);
+        GL30.glBindVertexArray(fullscreenVaoId);
+        GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, 3);
+        GL30.glBindVertexArray(0);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        compositeShader.unuse();
+
+        GL11.glDepthMask(true);
+        GL11.glEnable(GL11.GL_DEPTH_TEST);
+    }
+
+    private void allocate(int width, int height) {
+        releaseTargets();
+        this.width = width;
+        this.height = height;
+
+        accumTextureId = createTarget(GL30.GL_RGBA16F, GL11.GL_RGBA);
+        weightTextureId = createTarget(GL30.GL_R16F, GL30.GL_RED);
+        depthRenderbufferId = GL30.glGenRenderbuffers();
+        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, depthRenderbufferId);
+        GL30.glRenderbufferStorage(GL30.GL_RENDERBUFFER, GL30.GL_DEPTH_COMPONENT32F, width, height);
+        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, 0);
+
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fboId);
+        GL30.glFramebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, GL11.GL_TEXTURE_2D, accumTextureId, 0);
+        GL30.glFramebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT1, GL11.GL_TEXTURE_2D, weightTextureId, 0);
+        GL30.glFramebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER, depthRenderbufferId);
+        GL20.glDrawBuffers(new int[] {GL30.GL_COLOR_ATTACHMENT0, GL30.GL_COLOR_ATTACHMENT1});
+        int status = GL30.glCheckFramebufferStatus(GL30.GL_FRAMEBUFFER);
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+        if (status != GL30.GL_FRAMEBUFFER_COMPLETE) {
+            throw new RuntimeException("Transparency framebuffer incomplete: 0x" + Integer.toHexString(status));
+        }
+    }
+
+    private int createTarget(int internalFormat, int format) {
+        int textureId = GL11.glGenTextures();
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
+        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, internalFormat, width, height, 0, format, GL11.GL_FLOAT, 0L);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        return textureId;
+    }
+
+    private void releaseTargets() {
+        if (accumTextureId != 0) GL11.glDeleteTextures(accumTextureId);
+        if (weightTextureId != 0) GL11.glDeleteTextures(weightTextureId);
+        if (depthRenderbufferId != 0) GL30.glDeleteRenderbuffers(depthRenderbufferId);
+        accumTextureId = weightTextureId = depthRenderbufferId = 0;
+    }
+
+    public void cleanup() {
+        releaseTargets();
+        GL30.glDeleteFramebuffers(fboId);
+        GL30.glDeleteVertexArrays(fullscreenVaoId);
+        compositeShader.cleanup();
+    }
+}
@@ -1,6 +1,5 @@
 package com.universe;
 
-import org.joml.Matrix4f;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.*;
 import org.lwjgl.stb.STBTTAlignedQuad;
@@ -26,6 +25,7 @@ public class UiRenderer {
     private int elementBufferId;
 
     private ShaderProgram uiShader;
+    private ShaderProgram.Uniform useTexture;
     private int fontTextureId;
     private STBTTBakedChar.Buffer charData;
     
@@ -44,6 +44,10 @@ public class UiRenderer {
         } catch (Exception e) {
             throw new RuntimeException("Failed to load UI shaders: " + e.getMessage());
         }
+        useTexture = uiShader.uniform("useTexture");
+        uiShader.use();
+        uiShader.setInt("textTexture", 0); // Font atlas is always on texture unit 0
+        uiShader.unuse();
         
         // Initialize VAO for UI rendering
         vaoId = glGenVertexArrays();
@@ -129,13 +133,6 @@ public class UiRenderer {
     public void renderSidebar(int windowWidth, int windowHeight, float sidebarWidth, boolean sidebarOpen) {
         if (!sidebarOpen) return;
         
-        // Set up orthographic projection
-        Matrix4f projection = new Matrix4f().ortho(
-            0, windowWidth, 
-            windowHeight, 0, // Flip Y axis for screen coordinates (0,0 at top-left)
-            -1, 1
-        );
-        
         // Background color (more opaque dark background)
         float[] bgColor = {0.08f, 0.08f, 0.12f, 0.92f};  // Darker and more opaque
         
@@ -152,9 +149,7 @@ public class UiRenderer {
         
         // Use UI shader
         uiShader.use();
-        uiShader.setMat4("projection", projection);
-        uiShader.setInt("textTexture", 0);
-        uiShader.setBoolean("useTexture", false);  // Just a colored quad, no texture
+        useTexture.set(false);  // Just a colored quad, no texture
         
         // Bind VAO
         glBindVertexArray(vaoId);
@@ -180,20 +175,9 @@ public class UiRenderer {
         glEnable(GL_BLEND);
         glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
         
+        // Pixel to clip space mapping comes from the FrameData uniform block
         uiShader.use();
-        // Get viewport size and create orthographic projection
-        IntBuffer viewport = BufferUtils.createIntBuffer(4);
-        GL11.glGetIntegerv(GL11.GL_VIEWPORT, viewport);
-        int viewportWidth = viewport.get(2);
-        int viewportHeight = viewport.get(3);
-        
-        Matrix4f projection = new Matrix4f().ortho(
-            0, viewportWidth, 
-            viewportHeight, 0,
-            -1, 1
-        );
-        uiShader.setMat4("projection", projection);
-        uiShader.setBoolean("useTexture", true);
+        useTexture.set(true);
         
         // Activate texture
         glActiveTexture(GL_TEXTURE0);
@@ -334,12 +318,8 @@ public class UiRenderer {
         // Use the UI shader
         uiShader.use();
         
-        // Set projection matrix for 2D rendering
-        Matrix4f ortho = new Matrix4f().ortho2D(0, windowWidth, windowHeight, 0);
-        uiShader.setMat4("projection", ortho);
-        
         // Tell shader we are rendering a colored quad (not textured text)
-        uiShader.setBoolean("useTexture", false);
+        useTexture.set(false);
         
         // Bind the VAO
         glBindVertexArray(vaoId);
@@ -363,7 +343,7 @@ public class UiRenderer {
         glBindVertexArray(0);
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         // Set back to texture mode for subsequent text rendering
-        uiShader.setBoolean("useTexture", true); 
+        useTexture.set(true);
         uiShader.unuse();
     }
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.universe;
 
+import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
 import org.joml.Vector3d;
 import org.joml.Vector3f;
@@ -14,19 +15,16 @@ import org.lwjgl.stb.STBTTFontinfo;
 import org.lwjgl.system.MemoryUtil;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
 import java.io.IOException;
 import java.nio.IntBuffer;
-import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.HashMap;
-import java.util.Collections;
 
 import static org.lwjgl.glfw.Callbacks.*;
 import static org.lwjgl.glfw.GLFW.*;
@@ -46,12 +44,54 @@ public class UniverseSim {
     private int windowHeight = 720;
     private final String windowTitle = "Universe Simulation";
 
-    private Map<String, Star> stars;
+    private StarCatalog stars;
     private List<Planet> planets;
 
+    // Background catalog loading; stars, planets and starIndex come from its latest snapshot
+    private StarSource starSource;
+    private StarStreamLoader.Snapshot starSnapshot;
+
+    // Spatial index over the loaded stars (indices are star ids)
+    private StarOctree starIndex;
+    private final IntList visibleStarIds = new IntList(4096);
+    private final IntList visibleNodeIds = new IntList(1024); // Octree nodes drawn as aggregates
+    private final StarDrawList drawList = new StarDrawList(4096);
+    private final FocusSelector focusSelector = new FocusSelector();
+
+    // Frustum culling state, reused every frame
+    private final Matrix4f viewProjection = new Matrix4f();
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    private final CullStats cullStats = new CullStats();
+    static final double MAX_STAR_DISTANCE = 10000.0; // Light-years, the far plane; the magnitude limit culls first
+
+    // Faintest apparent magnitude drawn, adjustable with [ and ]
+    private static final double DEFAULT_MAGNITUDE_LIMIT = 12.0;
+    private static final double MAGNITUDE_LIMIT_STEP = 0.5;
+    private double magnitudeLimit = DEFAULT_MAGNITUDE_LIMIT;
+
+    // Stars beyond this radius (ly) come from the far-field sky cubemap instead of being drawn each frame
+    private static final double FAR_FIELD_RADIUS = 300.0;
+    private static final int SKY_FACE_SIZE = 1024; // Pixels per cube face
+    private FarFieldSky farFieldSky;
+
+    // Out-of-core catalogs: a StarTileFile streamed around the camera instead of stars.csv
+    private static final double TILE_LOAD_RADIUS = 2000.0; // Light-years
+    private static final long DEFAULT_TILE_BUDGET_MB = 1024;
+    private final String tileCatalogPath; // null to load stars.csv whole
+    private final long tileBudgetBytes;
+
+    // Headless benchmark (--bench): scripted flights in a hidden window, vsync off, timings to JSON
+    private static final int DEFAULT_BENCH_FRAMES = 600; // Per flight
+    private static final String DEFAULT_BENCH_OUTPUT = "benchmark.json";
+    private Benchmark benchmark; // null in interactive mode
+    private String benchmarkOutput;
+    private BenchmarkReport benchmarkReport;
+    private FrameProfiler profiler;
+
     // Camera
     private Camera camera;
     private Matrix4f projectionMatrix;
+    private FrameUniforms frameUniforms;
     // Define appropriate near and far clipping planes for the vast scale
     private static final float NEAR_PLANE = 0.01f;  // In light-years
     private static final float FAR_PLANE = 10000.0f; // In light-years (adjust as needed)
@@ -67,13 +107,8 @@ public class UniverseSim {
     private double lastFrameTime;
     private double deltaTime;
 
-    // Sphere mesh and VAO/VBO/EBO for rendering stars as spheres
-    private SphereMesh sphereMesh;
-    private int sphereVaoId;
-    private int sphereVboId;
-    private int sphereNboId;
-    private int sphereEboId;
-    private ShaderProgram starSphereShader;
+    // Instanced sphere renderer for stars
+    private StarRenderer starRenderer;
 
     // Sidebar
     private boolean sidebarOpen = true;
@@ -85,8 +120,29 @@ public class UniverseSim {
     private boolean searchMode = false;
     private StringBuilder searchInput = new StringBuilder();
     private Star searchResult = null;
+    private int focusedStarId = StarCatalog.NOT_FOUND;
+    private Star focusedStarView;
     private UiRenderer uiRenderer;  // Add UiRenderer
 
+    /**
+     * @param tileCatalogPath tile file to stream the stars from (see {@link StarTileFile}),
+     *                        or null to load stars.csv and planets.csv whole
+     * @param tileBudgetBytes memory budget of the tile cache
+     */
+    public UniverseSim(String tileCatalogPath, long tileBudgetBytes) {
+        this.tileCatalogPath = tileCatalogPath;
+        this.tileBudgetBytes = tileBudgetBytes;
+    }
+
+    /**
+     * Runs the benchmark flights instead of taking input, then writes their timings to outputPath
+     * and exits. Call before {@link #run}.
+     */
+    public void enableBenchmark(int framesPerFlight, String outputPath) {
+        this.benchmark = new Benchmark(framesPerFlight);
+        this.benchmarkOutput = outputPath;
+    }
+
     /**
      * Starts the simulation.
      */
@@ -137,6 +193,20 @@ public class UniverseSim {
                 sidebarOpen = !sidebarOpen;
             }
             
+            // Switch between order-independent and sorted star blending
+            if (key == GLFW_KEY_B && action == GLFW_PRESS && !searchMode && starRenderer != null) {
+                starRenderer.setOrderIndependent(!starRenderer.isOrderIndependent());
+                drawList.reset(); // Its order is stale by the time sorting resumes
+                System.out.println("Star blending: " + (starRenderer.isOrderIndependent() ? "order-independent" : "sorted"));
+            }
+
+            // Raise or lower the faintest apparent magnitude drawn
+            if ((key == GLFW_KEY_LEFT_BRACKET || key == GLFW_KEY_RIGHT_BRACKET)
+                    && (action == GLFW_PRESS || action == GLFW_REPEAT) && !searchMode) {
+                magnitudeLimit += key == GLFW_KEY_RIGHT_BRACKET ? MAGNITUDE_LIMIT_STEP : -MAGNITUDE_LIMIT_STEP;
+                System.out.printf("Magnitude limit: %.1f%n", magnitudeLimit);
+            }
+
             // Enter/exit search mode on slash key
             if (key == GLFW_KEY_SLASH && action == GLFW_PRESS) {
                 searchMode = !searchMode;
@@ -172,7 +242,7 @@ public class UniverseSim {
                         String hipIdStr = query.substring(3);
                         try {
                             int hipId = Integer.parseInt(hipIdStr);
-                            searchResult = stars.get("hip" + hipId);
+                            searchResult = stars.findByHip(hipId);
                         } catch (NumberFormatException e) {
                             // Not a valid number, continue with name search
                         }
@@ -180,7 +250,7 @@ public class UniverseSim {
                         // Try direct numeric HIP ID (without "hip" prefix)
                         try {
                             int hipId = Integer.parseInt(query);
-                            searchResult = stars.get("hip" + hipId);
+                            searchResult = stars.findByHip(hipId);
                         } catch (NumberFormatException e) {
                             // Not a valid number, continue with name search
                         }
@@ -189,14 +259,14 @@ public class UniverseSim {
                     // If not found by HIP ID, search by name
                     if (searchResult == null) {
                         // Try exact name match first
-                        searchResult = stars.get(query);
+                        searchResult = stars.findByName(query);
                         
                         // If not found, try partial match
                         if (searchResult == null) {
                             // Search by name using partial matching
-                            for (Star star : stars.values()) {
-                                if (star.getName().toLowerCase().contains(query)) {
-                                    searchResult = star;
+                            for (int id = 0; id < stars.size(); id++) {
+                                if (stars.getName(id).toLowerCase().contains(query)) {
+                                    searchResult = stars.get(id);
                                     break;
                                 }
                             }
@@ -277,10 +347,12 @@ public class UniverseSim {
              }
         });
         
-        // Capture the mouse cursor
-        glfwSetInputMode(window, GLFW_CURSOR, GLFW_CURSOR_DISABLED);
-        if (glfwRawMouseMotionSupported()) {
-            glfwSetInputMode(window, GLFW_RAW_MOUSE_MOTION, GLFW_TRUE);
+        // Capture the mouse cursor (the benchmark window is never shown)
+        if (benchmark == null) {
+            glfwSetInputMode(window, GLFW_CURSOR, GLFW_CURSOR_DISABLED);
+            if (glfwRawMouseMotionSupported()) {
+                glfwSetInputMode(window, GLFW_RAW_MOUSE_MOTION, GLFW_TRUE);
+            }
         }
 
         // Get the thread stack and push a new frame
@@ -294,21 +366,25 @@ public class UniverseSim {
             // Get the resolution of the primary monitor
             GLFWVidMode vidmode = glfwGetVideoMode(glfwGetPrimaryMonitor());
 
-            // Center the window
-            glfwSetWindowPos(
-                window,
-                (vidmode.width() - pWidth.get(0)) / 2,
-                (vidmode.height() - pHeight.get(0)) / 2
-            );
+            // Center the window (headless displays may report no video mode)
+            if (vidmode != null) {
+                glfwSetWindowPos(
+                    window,
+                    (vidmode.width() - pWidth.get(0)) / 2,
+                    (vidmode.height() - pHeight.get(0)) / 2
+                );
+            }
         } // the stack frame is popped automatically
 
         // Make the OpenGL context current
         glfwMakeContextCurrent(window);
-        // Enable v-sync
-        glfwSwapInterval(1);
+        // Enable v-sync, except when benchmarking
+        glfwSwapInterval(benchmark == null ? 1 : 0);
 
-        // Make the window visible
-        glfwShowWindow(window);
+        // Make the window visible; the benchmark renders into the hidden window's framebuffer
+        if (benchmark == null) {
+            glfwShowWindow(window);
+        }
 
         // This line is critical for LWJGL's interoperation with GLFW's
         // OpenGL context, or any context that is managed externally.
@@ -317,6 +393,10 @@ public class UniverseSim {
         // bindings available for use.
         GL.createCapabilities();
 
+        // Frame phase timings, only recorded while benchmarking
+        benchmarkReport = new BenchmarkReport(FrameProfiler.PHASES);
+        profiler = new FrameProfiler(benchmarkReport);
+
         // Set the clear color (background to dark gray for debug)
         glClearColor(0.0f, 0.0f, 0.0f, 1.0f); // Pitch black background
         
@@ -336,28 +416,21 @@ public class UniverseSim {
         // Set point size (in case we render stars as points in the future)
         glPointSize(4.0f);
 
-        // Load data
-        try {
-            stars = DataLoader.loadStarsFromFile("stars.csv");
-            
-            // Remove overlapping stars (remove larger ones)
-            removeOverlappingStars();
-            
-            planets = DataLoader.loadPlanetsFromFile("planets.csv", stars);
-            System.out.println("Loaded " + stars.size() + " stars and " + planets.size() + " planets.");
-        } catch (IOException e) {
-            System.err.println("Error loading data: " + e.getMessage());
-            e.printStackTrace();
-            glfwSetWindowShouldClose(window, true);
-            return;
+        // Load data in the background; the sky fills in as batches (or tiles) arrive
+        if (tileCatalogPath != null) {
+            starSource = new StarTileCache(Paths.get(tileCatalogPath), TILE_LOAD_RADIUS, tileBudgetBytes);
+        } else {
+            starSource = new StarStreamLoader("stars.csv", "planets.csv", StarOverlapResolver::removeOverlaps);
         }
+        updateStarSnapshot();
+        starSource.start();
         
         // Initialize camera position (e.g., start near Earth/Sun)
         // TODO: Initialize Camera object
         
         // -- Initialize Camera --
         // Spawn just outside the Sun's surface along +Z
-        Star sun = stars.get("sun");
+        Star sun = stars.findByName("sun");
         double sunRadiusLy = sun != null ? sun.getRadiusKm() * 1.057e-13 : 0.0; // 1 ly = 9.461e12 km
         double startDistLy = sunRadiusLy + 0.8; // 0.01 ly offset
         camera = new Camera(new Vector3d(0.0, 0.0, startDistLy)); 
@@ -372,37 +445,13 @@ public class UniverseSim {
         projectionMatrix = new Matrix4f();
         updateProjectionMatrix();
 
-        // --- SPHERE MESH SETUP ---
-        sphereMesh = new SphereMesh(16, 16); // 16x16 is a good balance of detail/performance
-        // Create VAO
-        sphereVaoId = GL30.glGenVertexArrays();
-        GL30.glBindVertexArray(sphereVaoId);
-        // Positions VBO
-        sphereVboId = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, sphereVboId);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, sphereMesh.positions, GL15.GL_STATIC_DRAW);
-        GL20.glVertexAttribPointer(0, 3, GL11.GL_FLOAT, false, 0, 0);
-        GL20.glEnableVertexAttribArray(0);
-        // Normals VBO
-        sphereNboId = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, sphereNboId);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, sphereMesh.normals, GL15.GL_STATIC_DRAW);
-        GL20.glVertexAttribPointer(1, 3, GL11.GL_FLOAT, false, 0, 0);
-        GL20.glEnableVertexAttribArray(1);
-        // EBO (indices)
-        sphereEboId = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, sphereEboId);
-        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, sphereMesh.indices, GL15.GL_STATIC_DRAW);
-        // Unbind
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-        GL30.glBindVertexArray(0);
-
-        // Load star sphere shader
+        // Per-frame uniform buffer, bound before any shader links against it
+        frameUniforms = new FrameUniforms();
+
+        // Star renderer (sphere mesh, per-instance buffer and star sphere shader)
         try {
-            starSphereShader = new ShaderProgram(
-                "shaders/star_sphere.vert",
-                "shaders/star_sphere.frag"
-            );
+            starRenderer = new StarRenderer();
+            farFieldSky = new FarFieldSky(starRenderer, frameUniforms, FAR_FIELD_RADIUS, SKY_FACE_SIZE, true);
         } catch (Exception e) {
             System.err.println("Failed to load/compile/link star sphere shaders: " + e.getMessage());
             glfwSetWindowShouldClose(window, true);
@@ -440,19 +489,42 @@ public class UniverseSim {
         // Run the rendering loop until the user has attempted to close
         // the window or has pressed the ESCAPE key.
         while (!glfwWindowShouldClose(window)) {
+            // Pick up newly loaded stars
+            updateStarSnapshot();
+
             // Calculate delta time
             double currentTime = glfwGetTime();
             deltaTime = currentTime - lastFrameTime;
             lastFrameTime = currentTime;
             
-            // Input processing
-            processInput(deltaTime);
+            // Input processing, or the next scripted benchmark frame
+            String benchmarkFlight = null;
+            if (benchmark != null) {
+                if (benchmark.isDone()) {
+                    finishBenchmark();
+                    break;
+                }
+                benchmarkFlight = benchmark.next(camera, starSnapshot);
+                updateProjectionMatrix(); // Flights set their own FOV
+            } else {
+                processInput(deltaTime);
+                camera.updateVelocity(deltaTime);
+            }
+            starSource.updateViewpoint(camera.position, camera.velocity);
+            profiler.beginFrame(benchmarkFlight);
+
+            // Recapture the far-field sky faces that are due (renders off-screen)
+            float pixelsPerRadian = projectionMatrix.m11() * windowHeight * 0.5f;
+            farFieldSky.update(stars, starIndex, camera.position, magnitudeLimit, pixelsPerRadian,
+                               windowWidth, windowHeight);
+            profiler.mark(FrameProfiler.SKY_UPDATE);
 
             // Clear the framebuffer
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT); // clear the framebuffer
 
-            // Get current view matrix from camera
+            // Get current view matrix from camera and share it with every shader
             Matrix4f viewMatrix = camera.getViewMatrix();
+            frameUniforms.update(viewMatrix, projectionMatrix, camera.position, windowWidth, windowHeight);
 
             // Render celestial objects
             render(viewMatrix, projectionMatrix);
@@ -464,9 +536,11 @@ public class UniverseSim {
             if (uiRenderer != null) {
                 uiRenderer.renderCrosshair(windowWidth, windowHeight);
             }
+            profiler.mark(FrameProfiler.UI);
 
             // Swap the color buffers
             glfwSwapBuffers(window);
+            profiler.endFrame();
 
             // Poll for window events. The key callback above will only be
             // invoked during this call.
@@ -474,6 +548,25 @@ public class UniverseSim {
         }
     }
 
+    /**
+     * Switches to the loader's newest snapshot, if any. Star ids are only valid within one
+     * snapshot, so the focus is dropped when the snapshot changes.
+     */
+    private void updateStarSnapshot() {
+        if (starSource.getFailure() != null) {
+            glfwSetWindowShouldClose(window, true);
+        }
+        StarStreamLoader.Snapshot snapshot = starSource.latest();
+        if (snapshot == starSnapshot) return;
+        starSnapshot = snapshot;
+        stars = snapshot.stars;
+        starIndex = snapshot.index;
+        planets = snapshot.planets;
+        drawList.reset();
+        focusedStarId = StarCatalog.NOT_FOUND;
+        focusedStarView = null;
+    }
+
     private void processInput(double dt) {
         if (camera == null) return;
         
@@ -507,103 +600,72 @@ public class UniverseSim {
     }
 
     private void render(Matrix4f view, Matrix4f projection) {
-        starSphereShader.use();
-        starSphereShader.setMat4("view", view);
-        starSphereShader.setMat4("projection", projection);
-        starSphereShader.setVec3("cameraPosView", new Vector3f(0,0,0));
-
-        // Pass camera world position to shader for distance calculations
-        starSphereShader.setVec3("cameraPos", new Vector3f((float)camera.position.x, (float)camera.position.y, (float)camera.position.z));
-
-        // Pass window dimensions to shader for minimum star size calculations
-        starSphereShader.setFloat("screenWidth", (float)windowWidth);
-        starSphereShader.setFloat("screenHeight", (float)windowHeight);
-
-        // --- Render Stars with Proper Blending ---
-        glEnable(GL_DEPTH_TEST); // Ensure depth testing is on
-        glDepthMask(true);      // Enable depth writing initially for opaque parts
-
-        // Use standard alpha blending for the base rendering pass
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-
-        GL30.glBindVertexArray(sphereVaoId);
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, sphereEboId);
-
-        // Field of view angle threshold for culling
-        double fovAngleCosine = Math.cos(Math.toRadians(75.0)); // Half of 150 degrees
-        Vector3f camDir = camera.front;
-
-        // Collect visible stars and sort them by distance (farthest first)
-        Map<Double, Star> visibleStars = new TreeMap<>(Collections.reverseOrder()); // Sort farthest first
-        for (Star star : stars.values()) {
-            double dx = star.getX() - camera.position.x;
-            double dy = star.getY() - camera.position.y;
-            double dz = star.getZ() - camera.position.z;
-            double distanceToStar = Math.sqrt(dx*dx + dy*dy + dz*dz);
-
-            // Basic distance culling
-            if (distanceToStar > 1000.0) continue;
-
-            // FOV culling
-            Vector3f dirToStar = new Vector3f((float)dx, (float)dy, (float)dz).normalize();
-            double dotProduct = dirToStar.dot(camDir);
-
-            if (dotProduct > fovAngleCosine) {
-                // Ensure unique key for sorting
-                while (visibleStars.containsKey(distanceToStar)) {
-                    distanceToStar += 0.000001;
-                }
-                visibleStars.put(distanceToStar, star);
+        // Frustum planes from the actual projection (FOV, aspect, near/far) and view
+        frustum.set(projection.mul(view, viewProjection));
+
+        // Distance and frustum culling through the spatial index
+        // Distant clusters spanning under a pixel come back as single octree nodes, and stars
+        // fainter than the magnitude limit don't come back at all
+        visibleStarIds.clear();
+        visibleNodeIds.clear();
+        cullStats.reset();
+        float pixelsPerRadian = projection.m11() * windowHeight * 0.5f;
+        starIndex.queryFrustum(frustum, camera.position.x, camera.position.y, camera.position.z,
+                               farFieldSky.nearFieldDistance(camera.position), magnitudeLimit,
+                               StarRenderer.aggregateMaxAngle(pixelsPerRadian),
+                               visibleStarIds, visibleNodeIds, cullStats);
+
+        // Farther stars are already in the sky, which goes behind everything
+        farFieldSky.keepNearField(stars, starIndex, visibleStarIds, visibleNodeIds, camera.position);
+        profiler.mark(FrameProfiler.CULL);
+        farFieldSky.draw();
+        profiler.mark(FrameProfiler.SKY_DRAW);
+
+        starRenderer.begin(stars, starIndex, projection, windowHeight);
+        // Aggregates are sub-pixel sprites of distant clusters; adding them first keeps the sorted
+        // path roughly back to front
+        for (int i = 0; i < visibleNodeIds.size(); i++) {
+            starRenderer.addAggregate(visibleNodeIds.get(i));
+        }
+        if (starRenderer.isOrderIndependent()) {
+            // Weighted blended transparency doesn't care about order
+            double[] xs = stars.xs(), ys = stars.ys(), zs = stars.zs();
+            for (int i = 0; i < visibleStarIds.size(); i++) {
+                int id = visibleStarIds.get(i);
+                double dx = xs[id] - camera.position.x;
+                double dy = ys[id] - camera.position.y;
+                double dz = zs[id] - camera.position.z;
+                starRenderer.addStar(id, Math.sqrt(dx*dx + dy*dy + dz*dz));
+            }
+        } else {
+            // Sort the visible stars by distance (farthest first), starting from last frame's order
+            drawList.build(stars, visibleStarIds, camera.position.x, camera.position.y, camera.position.z);
+            for (int i = 0; i < drawList.size(); i++) {
+                starRenderer.addStar(drawList.id(i), drawList.distance(i));
             }
         }
+        starRenderer.render(windowWidth, windowHeight);
+        profiler.mark(FrameProfiler.STARS);
+    }
 
-        // Render stars from farthest to nearest
-        for (Map.Entry<Double, Star> entry : visibleStars.entrySet()) {
-            double distanceToStar = entry.getKey();
-            Star star = entry.getValue();
-
-            // If the star's core should be opaque (based on shader logic proximity)
-            // Keep depth writing enabled. Otherwise, disable it for the glow.
-            boolean isCloseEnoughForOpaqueCore = distanceToStar < 5.0;
-            glDepthMask(isCloseEnoughForOpaqueCore); // Only write depth for close stars
-
-            // Calculate base scale factor
-            float baseScale = (float)(star.getRadiusKm() * 1e-7); // Adjusted factor if needed
-
-            // Scale adjustment for visibility
-             if (distanceToStar < 100.0) {
-                 float distanceFactor = (float)(1.0 - Math.min(distanceToStar / 100.0, 0.99));
-                 float minScaleFactor = 1.0f + distanceFactor * 2.0f; // Adjust amplification maybe
-                 baseScale = Math.max(baseScale, baseScale * minScaleFactor);
-             } else {
-                 baseScale = Math.max(baseScale, 0.0005f); // Smaller min size for far stars maybe
-             }
-
-            // Create model matrix
-            Matrix4f model = new Matrix4f()
-                .translate((float)star.getX(), (float)star.getY(), (float)star.getZ())
-                .scale(baseScale);
-
-            starSphereShader.setMat4("model", model);
-
-            // Set star properties
-            java.awt.Color c = star.getColor();
-            Vector3f color = new Vector3f(c.getRed()/255.0f, c.getGreen()/255.0f, c.getBlue()/255.0f);
-            starSphereShader.setVec3("starColor", color);
-            starSphereShader.setFloat("starDistance", (float)distanceToStar);
-            starSphereShader.setFloat("starAbsMag", (float)star.getAbsoluteMagnitude());
-            starSphereShader.setFloat("minVisibleSize", 2.0f);
-            starSphereShader.setBoolean("ensureVisible", distanceToStar < 100.0);
-
-            // Draw the star
-            GL11.glDrawElements(GL11.GL_TRIANGLES, sphereMesh.indexCount, GL11.GL_UNSIGNED_INT, 0);
+    // Writes the benchmark's timings as JSON, to the output file and stdout
+    private void finishBenchmark() {
+        profiler.finish();
+        benchmarkReport.describe("renderer", glGetString(GL_RENDERER));
+        benchmarkReport.describe("gl_version", glGetString(GL_VERSION));
+        benchmarkReport.describe("width", windowWidth);
+        benchmarkReport.describe("height", windowHeight);
+        benchmarkReport.describe("stars", stars.size());
+        benchmarkReport.describe("magnitude_limit", magnitudeLimit);
+        benchmarkReport.describe("blending", starRenderer.isOrderIndependent() ? "order-independent" : "sorted");
+        String json = benchmarkReport.toJson();
+        System.out.print(json);
+        try {
+            Files.write(Paths.get(benchmarkOutput), json.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Benchmark results written to " + benchmarkOutput);
+        } catch (IOException e) {
+            System.err.println("Failed to write benchmark results: " + e.getMessage());
         }
-
-        // --- Cleanup ---
-        glDepthMask(true); // Re-enable depth writing for subsequent rendering (like UI)
-        GL30.glBindVertexArray(0);
-        starSphereShader.unuse();
     }
 
     private void renderSidebarOverlay() {
@@ -627,7 +689,13 @@ public class UniverseSim {
         textY += 36;  // More space after heading
         
         // Get focused star
-        Star focusedStar = getStarClosestToCenter();
+        int focusedId = getStarClosestToCenter();
+        if (focusedId != focusedStarId) {
+            // Only build a new Star view when the focus changes
+            focusedStarId = focusedId;
+            focusedStarView = focusedId != StarCatalog.NOT_FOUND ? stars.get(focusedId) : null;
+        }
+        Star focusedStar = focusedStarView;
         if (focusedStar != null) {
             // Display name
             uiRenderer.renderText("Name: " + focusedStar.getName(), textX, textY, 1.0f, whiteColor); 
@@ -690,6 +758,10 @@ public class UniverseSim {
         uiRenderer.renderText("[+] Increase Speed", textX, textY, 0.9f, lightBlueColor);
         textY += 20;
         uiRenderer.renderText("[-] Decrease Speed", textX, textY, 0.9f, lightBlueColor);
+        textY += 20;
+        uiRenderer.renderText("[B] Toggle Sorted Blending", textX, textY, 0.9f, lightBlueColor);
+        textY += 20;
+        uiRenderer.renderText("[ / ] Magnitude Limit", textX, textY, 0.9f, lightBlueColor);
         textY += 40;
         
         // Status section
@@ -701,7 +773,28 @@ public class UniverseSim {
         textY += 20;
         uiRenderer.renderText(String.format("Speed: %.6f ly/s", camera.movementSpeed), 
                               textX, textY, 0.9f, whiteColor); 
-        textY += 40;
+        textY += 20;
+        uiRenderer.renderText(String.format("Culling: %d tested, %d drawn, %d culled, %d aggregated",
+                              cullStats.starsTested, cullStats.starsAccepted, cullStats.starsRejected,
+                              cullStats.starsAggregated),
+                              textX, textY, 0.9f, whiteColor);
+        textY += 20;
+        uiRenderer.renderText(String.format("Instances: %d spheres, %d sprites",
+                              starRenderer.getInstanceCount(), starRenderer.getSpriteCount()),
+                              textX, textY, 0.9f, whiteColor);
+        textY += 20;
+        uiRenderer.renderText("Blending: " + (starRenderer.isOrderIndependent() ? "order-independent" : "sorted"),
+                              textX, textY, 0.9f, whiteColor);
+        textY += 20;
+        uiRenderer.renderText(String.format("Magnitude limit: %.1f (%d too faint)", magnitudeLimit, cullStats.starsTooFaint),
+                              textX, textY, 0.9f, whiteColor);
+        textY += 20;
+        if (!starSnapshot.complete) {
+            uiRenderer.renderText(String.format("Loading stars... %d so far", stars.size()),
+                                  textX, textY, 0.9f, whiteColor);
+            textY += 20;
+        }
+        textY += 20;
         
         // Search section
         if (searchMode) {
@@ -727,90 +820,10 @@ public class UniverseSim {
         System.out.println("UI Text: " + text);
     }
 
-    private Star getStarClosestToCenter() {
+    private int getStarClosestToCenter() {
         Vector3d camPos = camera.position;
         Vector3f camDir = camera.front;
-        // Using a narrower angle for more precise selection
-        double maxAngle = Math.toRadians(15.0); // Narrower detection cone (was 45 degrees)
-        Star closest = null;
-        double closestScore = Double.MAX_VALUE;
-        
-        // Collect all potentially visible stars
-        Map<Double, Star> candidateStars = new TreeMap<>();
-        
-        for (Star star : stars.values()) {
-            double dx = star.getX() - camPos.x;
-            double dy = star.getY() - camPos.y;
-            double dz = star.getZ() - camPos.z;
-            double distanceToStar = Math.sqrt(dx*dx + dy*dy + dz*dz);
-            
-            // Skip very distant stars for cursor selection
-            if (distanceToStar > 500.0) continue;
-            
-            Vector3f toStar = new Vector3f((float)dx, (float)dy, (float)dz).normalize();
-            double angle = Math.acos(Math.max(-1.0, Math.min(1.0, camDir.dot(toStar)))); // Clamp to avoid precision errors
-            
-            // Store all stars within our selection cone
-            if (angle < maxAngle) {
-                // Ensure unique key by adding a small random offset for same-distance stars
-                while (candidateStars.containsKey(distanceToStar)) {
-                    distanceToStar += 0.000001;
-                }
-                
-                candidateStars.put(distanceToStar, star);
-            }
-        }
-        
-        // If we have candidates, prioritize closer stars and those more centered in view
-        if (!candidateStars.isEmpty()) {
-            // First, check the closest stars (up to 5) with priority
-            int count = 0;
-            
-            for (Map.Entry<Double, Star> entry : candidateStars.entrySet()) {
-                count++;
-                Star star = entry.getValue();
-                double distanceToStar = entry.getKey();
-                
-                // Skip extremely far stars even within the cone
-                if (distanceToStar > 100.0) continue;
-                
-                double dx = star.getX() - camPos.x;
-                double dy = star.getY() - camPos.y;
-                double dz = star.getZ() - camPos.z;
-                Vector3f toStar = new Vector3f((float)dx, (float)dy, (float)dz).normalize();
-                double angle = Math.acos(Math.max(-1.0, Math.min(1.0, camDir.dot(toStar))));
-                
-                // Calculate a combined score that prioritizes:
-                // 1. Stars closer to center of view (smaller angle)
-                // 2. Stars closer to camera (smaller distance)
-                // Weight the angle more for stars that are close to each other
-                double distanceWeight = Math.min(distanceToStar / 10.0, 1.0); // 0-1 range
-                double angleWeight = angle / maxAngle; // 0-1 range
-                
-                // Combined score (lower is better)
-                double score = angleWeight * 0.7 + distanceWeight * 0.3;
-                
-                // For very close stars (< 5ly), prioritize them even more
-                if (distanceToStar < 5.0) {
-                    score *= 0.5; // Half the score makes it more likely to be selected
-                }
-                
-                if (score < closestScore) {
-                    closest = star;
-                    closestScore = score;
-                }
-                
-                // Check only the closest few stars if there are many candidates
-                if (count >= 10) break;
-            }
-            
-            // If no good candidates from closest stars, just pick the nearest
-            if (closest == null && !candidateStars.isEmpty()) {
-                closest = candidateStars.values().iterator().next();
-            }
-        }
-        
-        return closest;
+        return focusSelector.select(stars, starIndex, camPos.x, camPos.y, camPos.z, camDir.x, camDir.y, camDir.z);
     }
 
     private void cleanup() {
@@ -824,11 +837,10 @@ public class UniverseSim {
         }
         
         // Cleanup OpenGL resources
-        if (starSphereShader != null) starSphereShader.cleanup();
-        if (sphereVboId != 0) GL15.glDeleteBuffers(sphereVboId);
-        if (sphereNboId != 0) GL15.glDeleteBuffers(sphereNboId);
-        if (sphereEboId != 0) GL15.glDeleteBuffers(sphereEboId);
-        if (sphereVaoId != 0) GL30.glDeleteVertexArrays(sphereVaoId);
+        if (farFieldSky != null) farFieldSky.cleanup();
+        if (profiler != null) profiler.cleanup();
+        if (starRenderer != null) starRenderer.cleanup();
+        if (frameUniforms != null) frameUniforms.cleanup();
         
         // Free memory
         if (fontBuffer != null) {
@@ -875,101 +887,60 @@ public class UniverseSim {
         }
     }
 
-    /**
-     * Detects and removes overlapping stars, keeping the smaller one
-     * when stars are found to be overlapping each other.
-     */
-    private void removeOverlappingStars() {
-        System.out.println("Starting overlap removal with " + stars.size() + " stars");
-        
-        // Only select stars which are duplicates at exactly the same position
-        Set<String> starsToRemove = new HashSet<>();
-        Map<String, List<Star>> positionMap = new HashMap<>();
+    public static void main(String[] args) {
+        // Ensure CSV files are in the right place or adjust paths in init()
+        System.out.println("Working Directory = " + System.getProperty("user.dir"));
+        System.out.println("Attempting to load data from default paths: stars.csv, planets.csv");
         
-        // First group stars by their integer position coordinates for quick filtering
-        // This creates spatial buckets of stars that are in the same general area
-        for (Star star : stars.values()) {
-            // Create a bucket key based on integer position (rough grouping)
-            String posKey = (int)star.getX() + "," + (int)star.getY() + "," + (int)star.getZ();
-            
-            if (!positionMap.containsKey(posKey)) {
-                positionMap.put(posKey, new ArrayList<>());
+        // Optional: a tile file (see StarTileFile) and its cache budget in MB, and the benchmark
+        // options --bench [--bench-frames N] [--bench-output file.json]
+        List<String> positional = new ArrayList<>();
+        boolean bench = false;
+        int benchFrames = DEFAULT_BENCH_FRAMES;
+        String benchOutput = DEFAULT_BENCH_OUTPUT;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ((arg.equals("--bench-frames") || arg.equals("--bench-output")) && i + 1 >= args.length) {
+                exitWithUsage("Missing value for " + arg);
             }
-            positionMap.get(posKey).add(star);
-        }
-        
-        // Now only check for overlaps within each position bucket
-        for (List<Star> bucket : positionMap.values()) {
-            // Skip tiny buckets (1 or 0 stars)
-            if (bucket.size() <= 1) continue;
-            
-            // Check each pair in the bucket (much smaller number of comparisons)
-            for (int i = 0; i < bucket.size(); i++) {
-                Star star1 = bucket.get(i);
-                // Skip if already marked for removal
-                if (starsToRemove.contains(star1.getName())) continue;
-                
-                for (int j = i+1; j < bucket.size(); j++) {
-                    Star star2 = bucket.get(j);
-                    // Skip if already marked for removal
-                    if (starsToRemove.contains(star2.getName())) continue;
-                    
-                    // Calculate 3D distance between the stars
-                    double dx = star1.getX() - star2.getX();
-                    double dy = star1.getY() - star2.getY();
-                    double dz = star1.getZ() - star2.getZ();
-                    double distanceBetween = Math.sqrt(dx*dx + dy*dy + dz*dz);
-                    
-                    // Use a simpler check for overlap - if they're practically at the same position
-                    // or if one is inside the other
-                    double kmToLy = 1.057e-13; // Conversion factor: kilometers to light-years
-                    double radius1_ly = star1.getRadiusKm() * kmToLy;
-                    double radius2_ly = star2.getRadiusKm() * kmToLy;
-
-                    // Check if the center of one star is inside the radius of the other
-                    boolean overlap = (distanceBetween < radius1_ly) || (distanceBetween < radius2_ly);
-
-                    // If stars overlap based on this condition
-                    if (overlap) {
-                        // Mark the larger star for removal
-                        if (star1.getRadiusKm() > star2.getRadiusKm()) {
-                            starsToRemove.add(star1.getName());
-                            // Since star1 is removed, break this inner loop for star1
-                            break;
-                        } else {
-                            starsToRemove.add(star2.getName());
-                            // star2 is marked, continue checking star1 against others in the bucket
-                        }
-                    }
-                }
+            switch (arg) {
+                case "--bench": bench = true; break;
+                case "--bench-frames": benchFrames = (int) parsePositive(arg, args[++i], Integer.MAX_VALUE); break;
+                case "--bench-output": benchOutput = args[++i]; break;
+                default:
+                    if (arg.startsWith("--")) exitWithUsage("Unknown option: " + arg);
+                    positional.add(arg);
             }
         }
-        
-        // Remove the identified stars
-        int count = 0;
-        for (String starName : starsToRemove) {
-            stars.remove(starName);
-            count++;
-            
-            // Garbage collect if we've removed a lot of stars
-            if (count % 1000 == 0) {
-                System.gc(); // Suggest garbage collection
-            }
+        if (positional.size() > 2) {
+            exitWithUsage("Too many arguments");
         }
-        
-        System.out.println("Removed " + starsToRemove.size() + " overlapping stars (larger ones).");
-        
-        // Force garbage collection to reclaim memory
-        positionMap.clear();
-        starsToRemove.clear();
-        System.gc();
+        String tiles = positional.size() > 0 ? positional.get(0) : null;
+        long budgetMb = positional.size() > 1
+            ? parsePositive("budget", positional.get(1), Long.MAX_VALUE / (1024 * 1024))
+            : DEFAULT_TILE_BUDGET_MB;
+        UniverseSim sim = new UniverseSim(tiles, budgetMb * 1024 * 1024);
+        if (bench) {
+            sim.enableBenchmark(benchFrames, benchOutput);
+        }
+        sim.run();
     }
 
-    public static void main(String[] args) {
-        // Ensure CSV files are in the right place or adjust paths in init()
-        System.out.println("Working Directory = " + System.getProperty("user.dir"));
-        System.out.println("Attempting to load data from default paths: stars.csv, planets.csv");
-        
-        new UniverseSim().run();
+    // Parses a whole number from 1 to max given for the named argument, exiting with usage otherwise
+    private static long parsePositive(String name, String value, long max) {
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed >= 1 && parsed <= max) return parsed;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        exitWithUsage("Invalid " + name + ": " + value);
+        return 0;
+    }
+
+    private static void exitWithUsage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: UniverseSim [<tiles-file> [<budget-mb>]] [--bench] [--bench-frames <n>] [--bench-output <file.json>]");
+        System.exit(1);
     }
 } 
\ No newline at end of file
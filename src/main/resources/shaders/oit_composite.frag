@@ -0,0 +1,19 @@
+#version 330 core
+out vec4 FragColor;
+
+uniform sampler2D accumTexture;  // rgb = sum of weighted premultiplied color, a = product of (1 - alpha)
+uniform sampler2D weightTexture; // r = sum of weighted alpha
+
+void main()
+{
+    ivec2 texel = ivec2(gl_FragCoord.xy);
+    vec4 accum = texelFetch(accumTexture, texel, 0);
+    float revealage = accum.a;
+    if (revealage >= 1.0) discard; // Nothing was drawn here
+
+    float weight = texelFetch(weightTexture, texel, 0).r;
+    vec3 averageColor = accum.rgb / max(weight, 1e-5);
+
+    // Blended over the opaque background with the total coverage
+    FragColor = vec4(averageColor, 1.0 - revealage);
+}
@@ -0,0 +1,12 @@
+#version 330 core
+out vec4 FragColor;
+
+in vec3 viewRay;
+
+uniform samplerCube skyTexture; // Far-field stars, captured by FarFieldSky
+
+void main()
+{
+    // Captured with alpha blending over transparent black, so rgb is already composited
+    FragColor = vec4(texture(skyTexture, viewRay).rgb, 1.0);
+}
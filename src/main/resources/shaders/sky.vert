@@ -0,0 +1,22 @@
+#version 330 core
+// Full-screen triangle at the far plane; each pixel looks up the sky along its view ray
+
+out vec3 viewRay; // World-space direction through the pixel
+
+layout (std140) uniform FrameData {
+    mat4 view;
+    mat4 projection;
+    vec3 cameraPos;
+    vec2 screenSize; // Pixels
+};
+
+void main()
+{
+    vec2 p = vec2((gl_VertexID << 1) & 2, gl_VertexID & 2) * 2.0 - 1.0;
+
+    // Undo the projection, then the camera rotation (orthonormal, so its inverse is its transpose)
+    vec3 eyeRay = vec3(p.x / projection[0][0], p.y / projection[1][1], -1.0);
+    viewRay = transpose(mat3(view)) * eyeRay;
+
+    gl_Position = vec4(p, 1.0, 1.0);
+}
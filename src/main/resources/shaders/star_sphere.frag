@@ -1,5 +1,6 @@
 #version 330 core
-out vec4 FragColor;
+layout (location = 0) out vec4 FragColor;
+layout (location = 1) out vec4 FragWeight; // Only bound while accumulating (see TransparencyBuffer)
 
 in vec3 fragColor;
 in vec3 fragNormal;
@@ -7,7 +8,22 @@ in vec3 fragPosWorld;
 in vec3 fragPosView;
 in float glowFactor; // Based on AbsMag and Distance
 
-uniform vec3 cameraPos;
+layout (std140) uniform FrameData {
+    mat4 view;
+    mat4 projection;
+    vec3 cameraPos;
+    vec2 screenSize; // Pixels
+};
+
+// 0 = sorted alpha blending, 1 = weighted blended accumulation, 2 = depth of the opaque core only
+uniform int blendMode;
+
+// Weight of a fragment in weighted blended transparency: nearer fragments dominate the average
+// (McGuire and Bavoil 2013, eq. 9, with depths rescaled to light-years)
+float transparencyWeight(float alpha, float viewDepth) {
+    float d = max(viewDepth, 1e-3);
+    return alpha * clamp(10.0 / (1e-5 + pow(d / 5.0, 2.0) + pow(d / 200.0, 6.0)), 1e-2, 3e3);
+}
 
 // Function to increase saturation
 vec3 saturateColor(vec3 color, float saturation) {
@@ -80,5 +96,15 @@ void main()
         alpha = 1.0;
     }
 
-    FragColor = vec4(finalColor, alpha);
+    if (blendMode == 2) {
+        // Depth prepass: only the fully opaque core occludes
+        if (alpha < 1.0) discard;
+        FragColor = vec4(finalColor, 1.0);
+    } else if (blendMode == 1) {
+        float weight = transparencyWeight(alpha, -fragPosView.z);
+        FragColor = vec4(finalColor * alpha * weight, alpha);
+        FragWeight = vec4(alpha * weight);
+    } else {
+        FragColor = vec4(finalColor, alpha);
+    }
 } 
\ No newline at end of file
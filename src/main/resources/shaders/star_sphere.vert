@@ -1,6 +1,10 @@
 #version 330 core
 layout (location = 0) in vec3 aPos;
 layout (location = 1) in vec3 aNormal;
+layout (location = 2) in int aStarId;     // Per instance
+
+// Per-star data uploaded once per catalog (see StarDataBuffer), two texels per star
+uniform samplerBuffer starData;
 
 out vec3 fragColor;
 out vec3 fragNormal;
@@ -8,61 +12,41 @@ out vec3 fragPosWorld;
 out vec3 fragPosView;
 out float glowFactor;
 
-uniform mat4 model;
-uniform mat4 view;
-uniform mat4 projection;
-uniform vec3 starColor;
-uniform float starDistance;
-uniform float starAbsMag;
-uniform vec3 cameraPos;
-uniform float screenWidth;
-uniform float screenHeight;
-uniform float minVisibleSize;
-uniform bool ensureVisible;
+layout (std140) uniform FrameData {
+    mat4 view;
+    mat4 projection;
+    vec3 cameraPos;
+    vec2 screenSize; // Pixels
+};
 
-void main()
+// Drawn radius for a star's base radius at a distance (ly), same as StarRenderer.renderedScale:
+// stars within 100 ly are amplified up to 3x, farther ones get a minimum size
+float starScale(float radius, float distance)
 {
-    // Get original model position
-    vec4 worldPos = model * vec4(aPos, 1.0);
-    
-    // Ensure minimum star size by uniformly scaling the model matrix if needed
-    if (ensureVisible) {
-        // Transform to view space
-        vec4 viewPos = view * worldPos;
-        
-        // Project to get clip space position
-        vec4 clipPos = projection * viewPos;
-        vec3 ndcPos = clipPos.xyz / clipPos.w;
-        
-        // Calculate screen coordinates
-        vec2 screenPos = ndcPos.xy * 0.5 + 0.5;
-        screenPos.x *= screenWidth;
-        screenPos.y *= screenHeight;
-        
-        // Calculate distance-based minimum size (at least 2x2 pixels)
-        float minPixelSize = 2.0; // Minimum 2x2 pixel size
-        
-        // Compute view-space size of the star
-        float distanceFactor = clamp(1.0 - starDistance / 100.0, 0.0, 1.0);
-        // Reduced by 25% for smaller close stars (from 2.0 to 1.5)
-        float sizeFactor = mix(1.0, 1.5, distanceFactor); // Smaller scale for closer stars
-        
-        // Use uniform scaling to preserve roundness
-        // Scale based on absolute magnitude also (brighter stars appear larger)
-        float magnitudeFactor = max(0.1, (16.0 - min(starAbsMag, 16.0)) / 16.0);
-        
-        // We apply the scaling to the original position without distorting the sphere
-        // This preserves the perfect round shape
-        fragPosWorld = worldPos.xyz;
-    } else {
-        fragPosWorld = worldPos.xyz;
+    if (distance < 100.0) {
+        float distanceFactor = 1.0 - min(distance / 100.0, 0.99);
+        return radius * (1.0 + distanceFactor * 2.0);
     }
-    
+    return max(radius, 0.0005);
+}
+
+void main()
+{
+    vec4 posRadius = texelFetch(starData, aStarId * 2);     // xyz = world position, w = base radius
+    vec4 colorMag = texelFetch(starData, aStarId * 2 + 1);  // rgb = star color, a = absolute magnitude
+    vec3 starColor = colorMag.rgb;
+    float starAbsMag = colorMag.a;
+    float starDistance = length(posRadius.xyz - cameraPos);
+
+    // Uniform scale + translation of the unit sphere
+    vec4 worldPos = vec4(posRadius.xyz + aPos * starScale(posRadius.w, starDistance), 1.0);
+    fragPosWorld = worldPos.xyz;
+
     // Calculate view space position
     fragPosView = vec3(view * worldPos);
     
-    // Normal transformation - preserve spherical shape
-    fragNormal = mat3(transpose(inverse(model))) * aNormal;
+    // Uniform scale and no rotation, so the mesh normal is already the world normal
+    fragNormal = aNormal;
     
     // Pass color to fragment shader
     fragColor = starColor;
@@ -77,5 +61,5 @@ void main()
     glowFactor = brightnessFactor / max(0.1, starDistance);
     
     // Transform final position to clip space
-    gl_Position = projection * view * worldPos;
-} 
\ No newline at end of file
+    gl_Position = projection * vec4(fragPosView, 1.0);
+}
@@ -0,0 +1,72 @@
+#version 330 core
+layout (location = 0) out vec4 FragColor;
+layout (location = 1) out vec4 FragWeight; // Only bound while accumulating (see TransparencyBuffer)
+
+in vec3 fragColor;
+in float glowFactor;
+in float viewDepth;
+
+// 0 = sorted alpha blending, 1 = weighted blended accumulation (same as star_sphere.frag)
+uniform int blendMode;
+
+// Weight of a fragment in weighted blended transparency: nearer fragments dominate the average
+// (McGuire and Bavoil 2013, eq. 9, with depths rescaled to light-years)
+float transparencyWeight(float alpha, float viewDepth) {
+    float d = max(viewDepth, 1e-3);
+    return alpha * clamp(10.0 / (1e-5 + pow(d / 5.0, 2.0) + pow(d / 200.0, 6.0)), 1e-2, 3e3);
+}
+
+// Function to increase saturation
+vec3 saturateColor(vec3 color, float saturation) {
+    float luminance = dot(color, vec3(0.2126, 0.7152, 0.0722));
+    vec3 grey = vec3(luminance);
+    return mix(grey, color, saturation);
+}
+
+// Shades the point as the disk of a sphere seen head-on, matching star_sphere.frag
+void main()
+{
+    // Radial position on the disk, 0 at the center and 1 at the limb
+    vec2 p = gl_PointCoord * 2.0 - 1.0;
+    float r2 = dot(p, p);
+    if (r2 > 1.0) discard;
+
+    // On a sphere the normal's view component falls off as sqrt(1 - r^2) towards the limb
+    float NdotV = sqrt(1.0 - r2);
+    float rim = pow(1.0 - NdotV, 2.5);
+
+    vec3 enhancedColor = saturateColor(fragColor, 1.8);
+    float glowStrength = pow(glowFactor, 1.5) * 1.5;
+
+    vec3 haloColor = mix(enhancedColor, vec3(1.0), 0.15);
+    vec3 rimGlow = haloColor * rim * glowStrength * 0.8;
+
+    float centerGlow = pow(NdotV, 0.5);
+    vec3 centerColor = mix(enhancedColor, vec3(1.0), 0.6);
+    vec3 coreBrightness = centerColor * centerGlow;
+
+    vec3 finalColor = enhancedColor * 0.4 + coreBrightness * 0.6 + rimGlow;
+
+    float bloomIntensity = clamp(glowStrength * 0.4, 0.0, 1.2);
+    finalColor += enhancedColor * pow(rim, 1.2) * bloomIntensity;
+
+    finalColor = finalColor / (finalColor + vec3(0.8));
+    finalColor = clamp(finalColor, 0.0, 1.0);
+
+    // Same alpha rules as the sphere; sprites are never close enough for the near-camera cases
+    float alpha = 1.0;
+    if (rim > 0.4 && NdotV <= 0.5) {
+        alpha = mix(1.0, 0.6, rim - 0.4);
+        if (glowFactor < 0.5) {
+            alpha = max(alpha, 0.7);
+        }
+    }
+
+    if (blendMode == 1) {
+        float weight = transparencyWeight(alpha, viewDepth);
+        FragColor = vec4(finalColor * alpha * weight, alpha);
+        FragWeight = vec4(alpha * weight);
+    } else {
+        FragColor = vec4(finalColor, alpha);
+    }
+}
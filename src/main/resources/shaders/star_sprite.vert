@@ -0,0 +1,48 @@
+#version 330 core
+// One point per star, fetching the same per-star data as the sphere instances
+layout (location = 0) in int aStarId;
+
+uniform samplerBuffer starData; // Two texels per star, see StarDataBuffer
+
+out vec3 fragColor;
+out float glowFactor;
+out float viewDepth; // Distance along the view axis, for transparency weights
+
+layout (std140) uniform FrameData {
+    mat4 view;
+    mat4 projection;
+    vec3 cameraPos;
+    vec2 screenSize; // Pixels
+};
+uniform float minSpriteSize; // Pixels
+
+// Same sizing as star_sphere.vert
+float starScale(float radius, float distance)
+{
+    if (distance < 100.0) {
+        float distanceFactor = 1.0 - min(distance / 100.0, 0.99);
+        return radius * (1.0 + distanceFactor * 2.0);
+    }
+    return max(radius, 0.0005);
+}
+
+void main()
+{
+    vec4 posRadius = texelFetch(starData, aStarId * 2);     // xyz = world position, w = base radius
+    vec4 colorMag = texelFetch(starData, aStarId * 2 + 1);  // rgb = star color, a = absolute magnitude
+    float starDistance = length(posRadius.xyz - cameraPos);
+
+    // Projected diameter of the sphere this sprite stands in for
+    float diameter = 2.0 * starScale(posRadius.w, starDistance) / max(starDistance, 1e-6) * projection[1][1] * 0.5 * screenSize.y;
+    gl_PointSize = max(diameter, minSpriteSize);
+
+    fragColor = colorMag.rgb;
+
+    // Same glow factor as star_sphere.vert
+    float brightnessFactor = 15.0 - min(colorMag.a, 15.0); // Clamp at 15
+    glowFactor = brightnessFactor / max(0.1, starDistance);
+
+    vec4 viewPos = view * vec4(posRadius.xyz, 1.0);
+    viewDepth = -viewPos.z;
+    gl_Position = projection * viewPos;
+}
@@ -7,10 +7,17 @@ layout (location = 2) in vec4 color;
 out vec2 TexCoord;
 out vec4 Color;
 
-uniform mat4 projection;
+layout (std140) uniform FrameData {
+    mat4 view;
+    mat4 projection;
+    vec3 cameraPos;
+    vec2 screenSize; // Pixels
+};
 
 void main() {
-    gl_Position = projection * vec4(position, 0.0, 1.0);
+    // Pixel coordinates with the origin at the top left, straight to clip space
+    vec2 ndc = position / screenSize * 2.0 - 1.0;
+    gl_Position = vec4(ndc.x, -ndc.y, 0.0, 1.0);
     TexCoord = texCoord;
     Color = color;
 } 
\ No newline at end of file